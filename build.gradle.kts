@@ -16,7 +16,43 @@ java {
   }
 }
 
+// Java 11+ class overrides, packaged under META-INF/versions/11 of a multi-release jar
+val java11 by sourceSets.creating {
+  java.setSrcDirs(listOf("src/main/java11"))
+  compileClasspath += sourceSets.main.get().output
+}
+
+tasks.named<JavaCompile>("compileJava11Java") {
+  javaCompiler.set(javaToolchains.compilerFor { languageVersion.set(JavaLanguageVersion.of(11)) })
+}
+
+// Java 21+ overrides, packaged under META-INF/versions/21
+val java21 by sourceSets.creating {
+  java.setSrcDirs(listOf("src/main/java21"))
+  compileClasspath += sourceSets.main.get().output
+}
+
+tasks.named<JavaCompile>("compileJava21Java") {
+  javaCompiler.set(javaToolchains.compilerFor { languageVersion.set(JavaLanguageVersion.of(21)) })
+}
+
+tasks.jar {
+  into("META-INF/versions/11") { from(java11.output) }
+  into("META-INF/versions/21") { from(java21.output) }
+  manifest { attributes("Multi-Release" to "true") }
+}
+
+// JMH micro benchmarks for the driver hot paths, see src/jmh
+val jmh by sourceSets.creating {
+  compileClasspath += sourceSets.main.get().output
+  runtimeClasspath += sourceSets.main.get().output
+}
+
 dependencies {
+  // Benchmarks
+  "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+  "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+
   // Test framework
   testImplementation("io.github.j8spec:j8spec:3.0.0")
   testImplementation("junit:junit:4.13.2")
@@ -44,6 +80,46 @@ tasks.test {
   }
 }
 
+// Specs for the Java 21+ transport, run on a Java 21 runtime with the overrides ahead of the base classes
+val test21 by sourceSets.creating {
+  java.setSrcDirs(listOf("src/test/java21"))
+  compileClasspath = java21.output + sourceSets.main.get().output + compileClasspath
+  runtimeClasspath = output + java21.output + sourceSets.main.get().output + runtimeClasspath
+}
+
+configurations["test21Implementation"].extendsFrom(configurations.testImplementation.get())
+
+tasks.named<JavaCompile>("compileTest21Java") {
+  javaCompiler.set(javaToolchains.compilerFor { languageVersion.set(JavaLanguageVersion.of(21)) })
+}
+
+val test21Task = tasks.register<Test>("test21") {
+  group = "verification"
+  description = "Runs the Java 21+ transport specs."
+  testClassesDirs = test21.output.classesDirs
+  classpath = test21.runtimeClasspath
+  javaLauncher.set(javaToolchains.launcherFor { languageVersion.set(JavaLanguageVersion.of(21)) })
+  useJUnit()
+  testLogging {
+    events("passed", "skipped", "failed")
+  }
+}
+
+tasks.check { dependsOn(test21Task) }
+
+// gradle jmh -PjmhArgs="L4JsonBench -p fixture=query-1k.json"
+tasks.register<JavaExec>("jmh") {
+  group = "verification"
+  description = "Runs the JMH benchmarks, results go to build/reports/jmh."
+  dependsOn(tasks.named("jmhClasses"))
+  classpath = jmh.runtimeClasspath
+  mainClass.set("org.openjdk.jmh.Main")
+  val out = layout.buildDirectory.file("reports/jmh/results.json").get().asFile
+  doFirst { out.parentFile.mkdirs() }
+  args("-rf", "json", "-rff", out.absolutePath)
+  (findProperty("jmhArgs") as String?)?.let { args(it.split(" ").filter { a -> a.isNotBlank() }) }
+}
+
 // Keep resource processing to embed project version
 tasks.processResources {
   filesMatching("io/rqlite/jdbc/version") {
@@ -0,0 +1,37 @@
+package io.rqlite.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/** Payload fixtures captured from typical rqlite responses, see src/jmh/resources. */
+public final class L4Fixtures {
+
+  public static final String Query1Row = "query-1row.json";
+  public static final String Query1k = "query-1k.json";
+  public static final String QueryBlob = "query-blob.json";
+  public static final String ExecuteBatch = "execute-batch.json";
+  public static final String Script = "script.sql";
+
+  private L4Fixtures() {}
+
+  public static String load(String name) {
+    try (InputStream in = L4Fixtures.class.getResourceAsStream(name)) {
+      if (in == null) {
+        throw new IllegalArgumentException("Missing fixture: " + name);
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buf = new byte[8192];
+      int n;
+      while ((n = in.read(buf)) != -1) {
+        out.write(buf, 0, n);
+      }
+      return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+}
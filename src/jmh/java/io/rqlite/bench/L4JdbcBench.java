@@ -0,0 +1,62 @@
+package io.rqlite.bench;
+
+import io.rqlite.client.L4Statement;
+import io.rqlite.jdbc.L4Jdbc;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+/** SQL splitting/classification and the per-cell cast functions behind L4Rs getters. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class L4JdbcBench {
+
+  private String script;
+  private String select;
+
+  @Setup public void setup() {
+    script = L4Fixtures.load(L4Fixtures.Script);
+    select = "select a.id, a.name from account a where a.balance > ? order by a.id";
+  }
+
+  @Benchmark public L4Statement[] split() {
+    return L4Jdbc.split(script);
+  }
+
+  @Benchmark public boolean isSelect() {
+    return L4Jdbc.isSelect(select);
+  }
+
+  @Benchmark public long castLong() throws SQLException {
+    return L4Jdbc.castLong("1234567890", 1, Types.BIGINT);
+  }
+
+  @Benchmark public double castDouble() throws SQLException {
+    return L4Jdbc.castDouble("9876.54", 1, Types.FLOAT);
+  }
+
+  @Benchmark public boolean castBoolean() throws SQLException {
+    return L4Jdbc.castBoolean("1", 1, Types.BOOLEAN);
+  }
+
+  @Benchmark public BigDecimal castBigDecimal() throws SQLException {
+    return L4Jdbc.castBigDecimal("9876.54", 1, Types.NUMERIC, -1);
+  }
+
+  @Benchmark public Timestamp castTimestamp() throws SQLException {
+    return L4Jdbc.castTimestamp("2025-06-14T10:22:31.123Z", 1, Types.TIMESTAMP, null);
+  }
+
+  @Benchmark public byte[] castBlob() throws SQLException {
+    return L4Jdbc.castBlob("3q2+7wAAAAA=", 1, Types.BLOB);
+  }
+
+}
@@ -0,0 +1,54 @@
+package io.rqlite.bench;
+
+import io.rqlite.client.L4Response;
+import io.rqlite.json.Json;
+import io.rqlite.json.JsonObject;
+import io.rqlite.json.JsonValue;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/** Response side: JSON parsing and L4Response/L4Result construction. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class L4JsonBench {
+
+  @Param({L4Fixtures.Query1Row, L4Fixtures.Query1k, L4Fixtures.QueryBlob, L4Fixtures.ExecuteBatch})
+  public String fixture;
+
+  private String body;
+  private byte[] bytes;
+  private JsonObject parsed;
+
+  @Setup public void setup() {
+    body = L4Fixtures.load(fixture);
+    bytes = body.getBytes(StandardCharsets.UTF_8);
+    parsed = Json.parse(body).asObject();
+  }
+
+  @Benchmark public JsonValue parse() {
+    return Json.parse(body);
+  }
+
+  @Benchmark public JsonValue parseBytes() {
+    return Json.parse(bytes);
+  }
+
+  @Benchmark public L4Response buildResponse() {
+    return L4Response.response(200, parsed);
+  }
+
+  @Benchmark public L4Response parseAndBuild() {
+    return L4Response.response(200, Json.parse(body).asObject());
+  }
+
+  @Benchmark public L4Response parseBytesToResponse() {
+    return L4Response.response(200, bytes);
+  }
+
+}
@@ -0,0 +1,76 @@
+package io.rqlite.bench;
+
+import io.rqlite.client.L4Response;
+import io.rqlite.client.L4Result;
+import io.rqlite.jdbc.L4Rs;
+import io.rqlite.json.Json;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/** Typed getter loops over a parsed 1k row result, the way application code walks a ResultSet. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class L4RsBench {
+
+  private L4Result result;
+  private L4Result blobResult;
+
+  @Setup public void setup() {
+    result = L4Response.response(200, Json.parse(L4Fixtures.load(L4Fixtures.Query1k)).asObject()).first();
+    blobResult = L4Response.response(200, Json.parse(L4Fixtures.load(L4Fixtures.QueryBlob)).asObject()).first();
+  }
+
+  @Benchmark public void byIndex(Blackhole bh) throws SQLException {
+    try (L4Rs rs = new L4Rs(result, null)) {
+      while (rs.next()) {
+        bh.consume(rs.getLong(1));
+        bh.consume(rs.getString(2));
+        bh.consume(rs.getString(3));
+        bh.consume(rs.getDouble(4));
+        bh.consume(rs.getBoolean(5));
+        bh.consume(rs.getTimestamp(6));
+        bh.consume(rs.getString(7));
+      }
+    }
+  }
+
+  @Benchmark public void byLabel(Blackhole bh) throws SQLException {
+    try (L4Rs rs = new L4Rs(result, null)) {
+      while (rs.next()) {
+        bh.consume(rs.getLong("id"));
+        bh.consume(rs.getString("name"));
+        bh.consume(rs.getString("email"));
+        bh.consume(rs.getBigDecimal("balance"));
+        bh.consume(rs.getBoolean("active"));
+        bh.consume(rs.getTimestamp("created_at"));
+        bh.consume(rs.getString("notes"));
+      }
+    }
+  }
+
+  @Benchmark public void getObject(Blackhole bh) throws SQLException {
+    try (L4Rs rs = new L4Rs(result, null)) {
+      while (rs.next()) {
+        for (int i = 1; i <= 7; i++) {
+          bh.consume(rs.getObject(i));
+        }
+      }
+    }
+  }
+
+  @Benchmark public void getBytes(Blackhole bh) throws SQLException {
+    try (L4Rs rs = new L4Rs(blobResult, null)) {
+      while (rs.next()) {
+        bh.consume(rs.getBytes(2));
+      }
+    }
+  }
+
+}
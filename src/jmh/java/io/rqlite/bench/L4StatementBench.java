@@ -0,0 +1,48 @@
+package io.rqlite.bench;
+
+import io.rqlite.client.L4Statement;
+import io.rqlite.json.JsonValue;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** Request side: serializing statement batches into the rqlite request body. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class L4StatementBench {
+
+  @Param({"1", "100"})
+  public int batchSize;
+
+  private L4Statement[] statements;
+
+  @Setup public void setup() {
+    Random rnd = new Random(42);
+    byte[] blob = new byte[512];
+    rnd.nextBytes(blob);
+    statements = new L4Statement[batchSize];
+    for (int i = 0; i < batchSize; i++) {
+      statements[i] = new L4Statement()
+        .sql("INSERT INTO account (id, name, email, balance, active, avatar) VALUES (?, ?, ?, ?, ?, ?)")
+        .withPositionalParams(
+          i, "user \"" + i + "\"", "user" + i + "@example.com",
+          new BigDecimal("1234.56"), i % 2 == 0, blob
+        );
+    }
+  }
+
+  @Benchmark public JsonValue toArray() {
+    return L4Statement.toArray(statements);
+  }
+
+  @Benchmark public String toBody() {
+    return L4Statement.toArray(statements).toString();
+  }
+
+}
@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS account (id INTEGER PRIMARY KEY, name TEXT NOT NULL, email TEXT, balance REAL DEFAULT 0);
+-- seed data; with a comment
+INSERT INTO account (name, email) VALUES ('O''Brien', 'ob@example.com');
+/* multi
+ line; comment */ UPDATE account SET balance = balance + 10 WHERE name = "O'Brien";
+SELECT a.id, a.name, count(*) FROM account a JOIN orders o ON o.account_id = a.id WHERE a.balance > 100 GROUP BY a.id ORDER BY 3 DESC LIMIT 50;
+DELETE FROM account WHERE email IS NULL;
@@ -0,0 +1,6 @@
+package io.rqlite.client;
+
+/** rqlite <code>/db/backup</code> formats: a SQLite database file, or a SQL text dump. */
+public enum L4Backup {
+  binary, sql
+}
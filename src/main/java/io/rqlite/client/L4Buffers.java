@@ -0,0 +1,337 @@
+package io.rqlite.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shared pool of I/O buffers in power of two size classes, from 4KB to 256KB. Heap arrays hold
+ * request bodies written by the JSON encoder and response bodies as they are read, and direct
+ * buffers back the socket I/O of {@link L4Nio}. Each class has a global lock-free free list, and
+ * the two smallest also have a one buffer cache per platform thread in front of it, so a thread
+ * holds at most 24KB. Virtual threads skip the cache, which would go away with the thread. Sizes
+ * past the largest class are allocated as usual and never pooled.
+ * <p>
+ * A buffer must only be given back once its last reader is done with it, so callers drop buffers
+ * that an aborted exchange may still be using instead of returning them.
+ */
+public final class L4Buffers {
+
+  public static final int MinBytes = 4 * 1024, MaxBytes = 256 * 1024;
+
+  private static final int MinShift = 12, Classes = 7, LocalClasses = 2;
+
+  private static final MethodHandle IsVirtual = isVirtualHandle();
+  private static final ThreadLocal<Object[]> local = ThreadLocal.withInitial(() -> new Object[LocalClasses * 2]);
+
+  public static final class Stats {
+    public final long hits, misses, drops;
+
+    Stats(long hits, long misses, long drops) {
+      this.hits = hits;
+      this.misses = misses;
+      this.drops = drops;
+    }
+
+    public double hitRate() {
+      long n = hits + misses;
+      return n == 0 ? 0 : (double) hits / n;
+    }
+
+    @Override public String toString() {
+      return String.format("[hits: %d, misses: %d, drops: %d, hit rate: %.1f%%]", hits, misses, drops, hitRate() * 100);
+    }
+  }
+
+  private static final class SizeClass {
+    final int size, slot;
+    final boolean direct, cached;
+    final AtomicReferenceArray<Object> free;
+    final LongAdder hits = new LongAdder(), misses = new LongAdder(), drops = new LongAdder();
+
+    SizeClass(int shift, boolean direct) {
+      this.size = 1 << shift;
+      this.slot = (shift - MinShift) * 2 + (direct ? 1 : 0);
+      this.direct = direct;
+      this.cached = shift - MinShift < LocalClasses;
+      this.free = new AtomicReferenceArray<>(Math.max(4, 64 >> (shift - MinShift))); // about 256KB held per class
+    }
+
+    Object take() {
+      Object[] cache = cached ? localCache() : null;
+      if (cache != null && cache[slot] != null) {
+        Object b = cache[slot];
+        cache[slot] = null;
+        hits.increment();
+        return b;
+      }
+      for (int i = 0; i < free.length(); i++) {
+        Object b = free.get(i);
+        if (b != null && free.compareAndSet(i, b, null)) {
+          hits.increment();
+          return b;
+        }
+      }
+      misses.increment();
+      return direct ? ByteBuffer.allocateDirect(size) : new byte[size];
+    }
+
+    void give(Object b) {
+      Object[] cache = cached ? localCache() : null;
+      if (cache != null && cache[slot] == null) {
+        cache[slot] = b;
+        return;
+      }
+      for (int i = 0; i < free.length(); i++) {
+        if (free.get(i) == null && free.compareAndSet(i, null, b)) {
+          return;
+        }
+      }
+      drops.increment();
+    }
+  }
+
+  private static final SizeClass[] heap = new SizeClass[Classes], direct = new SizeClass[Classes];
+
+  static {
+    for (int i = 0; i < Classes; i++) {
+      heap[i] = new SizeClass(MinShift + i, false);
+      direct[i] = new SizeClass(MinShift + i, true);
+    }
+  }
+
+  private L4Buffers() {}
+
+  private static MethodHandle isVirtualHandle() {
+    try {
+      return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+    } catch (ReflectiveOperationException e) {
+      return null; // before Java 21
+    }
+  }
+
+  private static Object[] localCache() {
+    if (IsVirtual != null) {
+      try {
+        if ((boolean) IsVirtual.invokeExact(Thread.currentThread())) {
+          return null;
+        }
+      } catch (Throwable e) {
+        return null;
+      }
+    }
+    return local.get();
+  }
+
+  /** @return the index of the smallest class holding <code>bytes</code>, or -1 past the largest. */
+  private static int classOf(int bytes) {
+    if (bytes > MaxBytes) {
+      return -1;
+    }
+    int shift = 32 - Integer.numberOfLeadingZeros(Math.max(bytes, MinBytes) - 1);
+    return shift - MinShift;
+  }
+
+  private static int exactClassOf(int capacity) {
+    int c = classOf(capacity);
+    return c != -1 && heap[c].size == capacity ? c : -1;
+  }
+
+  /** @return an array of at least <code>bytes</code>, with whatever content it was given back with. */
+  public static byte[] take(int bytes) {
+    int c = classOf(bytes);
+    return c == -1 ? new byte[bytes] : (byte[]) heap[c].take();
+  }
+
+  public static void give(byte[] b) {
+    int c = b != null ? exactClassOf(b.length) : -1;
+    if (c != -1) {
+      heap[c].give(b);
+    }
+  }
+
+  /** @return a cleared direct buffer of at least <code>bytes</code>. */
+  public static ByteBuffer takeDirect(int bytes) {
+    int c = classOf(bytes);
+    if (c == -1) {
+      return ByteBuffer.allocateDirect(bytes);
+    }
+    ByteBuffer b = (ByteBuffer) direct[c].take();
+    b.clear();
+    return b;
+  }
+
+  public static void give(ByteBuffer b) {
+    int c = b != null && b.isDirect() ? exactClassOf(b.capacity()) : -1;
+    if (c != -1) {
+      direct[c].give(b);
+    }
+  }
+
+  /** Copies <code>b[0..len)</code> into an array of at least <code>bytes</code>, giving <code>b</code> back. */
+  static byte[] grow(byte[] b, int len, int bytes) {
+    byte[] next = take(Math.max(bytes, (int) Math.min(Integer.MAX_VALUE - 8, b.length * 2L)));
+    System.arraycopy(b, 0, next, 0, len);
+    give(b);
+    return next;
+  }
+
+  /** Reads the stream to its end, through pooled arrays, into an array of exactly the bytes read. */
+  static byte[] readFully(InputStream is, int sizeHint) throws IOException {
+    if (sizeHint >= 0) {
+      byte[] out = new byte[sizeHint];
+      int n = 0, r;
+      while (n < sizeHint && (r = is.read(out, n, sizeHint - n)) != -1) {
+        n += r;
+      }
+      return n < sizeHint ? Arrays.copyOf(out, n) : out;
+    }
+    byte[] buf = take(MinBytes);
+    int n = 0, r;
+    while ((r = is.read(buf, n, buf.length - n)) != -1) {
+      n += r;
+      if (n == buf.length) {
+        buf = grow(buf, n, n + 1);
+      }
+    }
+    byte[] out = Arrays.copyOf(buf, n);
+    give(buf);
+    return out;
+  }
+
+  /**
+   * UTF-8 encoding {@link Writer} over a pooled array, so request bodies go from the JSON encoder
+   * to the transport without an intermediate <code>String</code>.
+   */
+  static final class Utf8Sink extends Writer {
+
+    private byte[] buf = take(MinBytes);
+    private int size;
+    private char high;
+
+    byte[] array() {
+      return buf;
+    }
+
+    int size() {
+      return size;
+    }
+
+    private void ensure(int n) {
+      if (size + n > buf.length) {
+        buf = grow(buf, size, size + n);
+      }
+    }
+
+    @Override public void write(int c) {
+      write((char) c);
+    }
+
+    private void write(char c) {
+      if (high != 0) {
+        char h = high;
+        high = 0;
+        if (Character.isLowSurrogate(c)) {
+          int cp = Character.toCodePoint(h, c);
+          ensure(4);
+          buf[size++] = (byte) (0xf0 | cp >> 18);
+          buf[size++] = (byte) (0x80 | cp >> 12 & 0x3f);
+          buf[size++] = (byte) (0x80 | cp >> 6 & 0x3f);
+          buf[size++] = (byte) (0x80 | cp & 0x3f);
+          return;
+        }
+        ensure(1);
+        buf[size++] = '?'; // unpaired surrogate, as String.getBytes() does
+      }
+      if (c < 0x80) {
+        ensure(1);
+        buf[size++] = (byte) c;
+      } else if (c < 0x800) {
+        ensure(2);
+        buf[size++] = (byte) (0xc0 | c >> 6);
+        buf[size++] = (byte) (0x80 | c & 0x3f);
+      } else if (Character.isHighSurrogate(c)) {
+        high = c;
+      } else if (Character.isLowSurrogate(c)) {
+        ensure(1);
+        buf[size++] = '?';
+      } else {
+        ensure(3);
+        buf[size++] = (byte) (0xe0 | c >> 12);
+        buf[size++] = (byte) (0x80 | c >> 6 & 0x3f);
+        buf[size++] = (byte) (0x80 | c & 0x3f);
+      }
+    }
+
+    @Override public void write(char[] cbuf, int off, int len) {
+      for (int i = off; i < off + len; i++) {
+        char c = cbuf[i];
+        if (c < 0x80 && high == 0) {
+          ensure(1);
+          buf[size++] = (byte) c;
+        } else {
+          write(c);
+        }
+      }
+    }
+
+    @Override public void write(String str, int off, int len) {
+      for (int i = off; i < off + len; i++) {
+        char c = str.charAt(i);
+        if (c < 0x80 && high == 0) {
+          ensure(1);
+          buf[size++] = (byte) c;
+        } else {
+          write(c);
+        }
+      }
+    }
+
+    @Override public void flush() {}
+
+    /** Ends the text, a trailing unpaired surrogate is written as <code>?</code>. */
+    @Override public void close() {
+      if (high != 0) {
+        high = 0;
+        ensure(1);
+        buf[size++] = '?';
+      }
+    }
+
+    /** Gives the array back to the pool, only once nothing reads it anymore. */
+    void release() {
+      give(buf);
+      buf = null;
+    }
+  }
+
+  public static Stats stats() {
+    long hits = 0, misses = 0, drops = 0;
+    for (SizeClass[] kind : new SizeClass[][] {heap, direct}) {
+      for (SizeClass c : kind) {
+        hits += c.hits.sum();
+        misses += c.misses.sum();
+        drops += c.drops.sum();
+      }
+    }
+    return new Stats(hits, misses, drops);
+  }
+
+  public static void reset() {
+    for (SizeClass[] kind : new SizeClass[][] {heap, direct}) {
+      for (SizeClass c : kind) {
+        c.hits.reset();
+        c.misses.reset();
+        c.drops.reset();
+      }
+    }
+  }
+
+}
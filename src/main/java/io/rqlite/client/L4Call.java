@@ -0,0 +1,208 @@
+package io.rqlite.client;
+
+import io.rqlite.jdbc.L4Log;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static java.lang.String.format;
+
+/**
+ * A single client request, with an optional deadline of its own. The deadline bounds the whole
+ * HTTP exchange (connect, body upload and response read), and is also sent to rqlite as the request
+ * <code>timeout</code>. {@link #cancel()} may be called from any thread, and aborts the in-flight
+ * connection so the calling thread fails right away instead of waiting for the response.
+ * <p>
+ * Reads may also override the consistency level and freshness of {@link L4Options}, either through
+ * the setters here or with a hint comment in the SQL of the first statement, which wins over both:
+ * <pre>SELECT /*+ level=none freshness=1s *&#47; * FROM sales</pre>
+ * Hint keys are <code>level</code>, <code>freshness</code> (a duration such as <code>500ms</code>)
+ * and <code>freshness_strict</code>. Invalid hints are logged and ignored.
+ */
+public final class L4Call {
+
+  private static final ScheduledThreadPoolExecutor deadlines = new ScheduledThreadPoolExecutor(1, r -> {
+    Thread t = new Thread(r, "l4-deadline");
+    t.setDaemon(true);
+    return t;
+  });
+
+  static {
+    deadlines.setRemoveOnCancelPolicy(true);
+  }
+
+  private static final Pattern Duration = Pattern.compile("(\\d+(\\.\\d+)?(ns|us|\\u00b5s|ms|s|m|h))+");
+
+  public final long timeoutMs;
+
+  L4Level level;
+  String  freshness;
+  Boolean freshnessStrict;
+
+  private volatile Runnable abortFn;
+  private volatile boolean cancelled, timedOut;
+  private ScheduledFuture<?> deadline;
+
+  /** @param timeoutMs deadline for the request, <= 0 uses {@link L4Options#timeoutSec}. */
+  public L4Call(long timeoutMs) {
+    this.timeoutMs = timeoutMs;
+  }
+
+  public L4Call level(L4Level level) {
+    this.level = level;
+    return this;
+  }
+
+  /** @param freshness how stale a <code>none</code> level read may be, as a duration such as <code>1s</code>. */
+  public L4Call freshness(String freshness) {
+    if (freshness != null && !Duration.matcher(freshness).matches()) {
+      throw new IllegalArgumentException(format("Invalid freshness [%s]", freshness));
+    }
+    this.freshness = freshness;
+    return this;
+  }
+
+  public L4Call freshnessStrict(boolean freshnessStrict) {
+    this.freshnessStrict = freshnessStrict;
+    return this;
+  }
+
+  private void hint(String key, String value) {
+    switch (key) {
+      case "level":
+        level = L4Level.valueOf(value.toLowerCase());
+        break;
+      case "freshness":
+        freshness(value);
+        break;
+      case "freshness_strict":
+        freshnessStrict = Boolean.parseBoolean(value);
+        break;
+      default:
+        throw new IllegalArgumentException("unknown key");
+    }
+  }
+
+  /* The text of the first hint comment outside quoted text and other comments, or null. */
+  private static String hintOf(String sql) {
+    int n = sql.length();
+    int i = 0;
+    while (i < n) {
+      char c = sql.charAt(i);
+      if (c == '\'' || c == '"' || c == '`' || c == '[') {
+        i = L4Statement.skipQuoted(sql, i, c == '[' ? ']' : c);
+      } else if (c == '-' && i + 1 < n && sql.charAt(i + 1) == '-') {
+        int end = sql.indexOf('\n', i);
+        i = end == -1 ? n : end + 1;
+      } else if (c == '/' && i + 1 < n && sql.charAt(i + 1) == '*') {
+        int end = sql.indexOf("*/", i + 2);
+        if (end == -1) {
+          return null;
+        }
+        if (i + 2 < end && sql.charAt(i + 2) == '+') {
+          return sql.substring(i + 3, end);
+        }
+        i = end + 2;
+      } else {
+        i++;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Applies the first hint comment in <code>sql</code>, if any, creating a call when there is none.
+   * Comments inside string literals or quoted identifiers are not hints.
+   *
+   * @return the call with the hinted settings, or <code>call</code> as is when there are no hints
+   */
+  public static L4Call withHints(L4Call call, String sql) {
+    String hint = sql != null && sql.contains("/*+") ? hintOf(sql) : null;
+    if (hint == null) {
+      return call;
+    }
+    L4Call out = call != null ? call : new L4Call(0);
+    for (String kv : hint.trim().split("[\\s,]+")) {
+      if (kv.isEmpty()) {
+        continue;
+      }
+      int eq = kv.indexOf('=');
+      try {
+        if (eq <= 0) {
+          throw new IllegalArgumentException("not a key=value pair");
+        }
+        out.hint(kv.substring(0, eq).toLowerCase(), kv.substring(eq + 1));
+      } catch (IllegalArgumentException e) {
+        L4Log.warn("Ignoring hint [{}] - {}", kv, e.getMessage());
+      }
+    }
+    return out;
+  }
+
+  public boolean hasTimeout() {
+    return timeoutMs > 0;
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  public boolean isTimedOut() {
+    return timedOut;
+  }
+
+  public boolean isAborted() {
+    return cancelled || timedOut;
+  }
+
+  private void abort() {
+    Runnable fn = abortFn;
+    if (fn != null) {
+      fn.run();
+    }
+  }
+
+  public void cancel() {
+    cancelled = true;
+    abort();
+  }
+
+  /*
+   * Binds the in-flight exchange, aborted by disconnecting or cancelling it. Either attach() sees
+   * the abort flag, or the aborting thread sees the exchange.
+   */
+  void attach(Runnable abortFn) {
+    this.abortFn = abortFn;
+    check();
+    if (hasTimeout() && deadline == null) {
+      deadline = deadlines.schedule(() -> {
+        timedOut = true;
+        abort();
+      }, timeoutMs, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  void check() {
+    if (timedOut) {
+      throw new IllegalStateException(format("Request timed out after %dms", timeoutMs));
+    }
+    if (cancelled) {
+      throw new IllegalStateException("Request cancelled");
+    }
+  }
+
+  void detach() {
+    if (deadline != null) {
+      deadline.cancel(false);
+    }
+    abortFn = null;
+  }
+
+  @Override public String toString() {
+    return format("l4call [%dms%s%s]", timeoutMs, level != null ? ", " + level : "",
+      timedOut ? ", timed out" : cancelled ? ", cancelled" : "");
+  }
+
+}
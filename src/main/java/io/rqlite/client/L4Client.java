@@ -1,19 +1,39 @@
 package io.rqlite.client;
 
-import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
+import java.util.NavigableMap;
 import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.LongConsumer;
 
 import io.rqlite.jdbc.L4Log;
 import io.rqlite.json.Json;
@@ -26,156 +46,276 @@ import static java.lang.String.format;
 
 public class L4Client implements Closeable {
 
+  private static final int StreamChunkBytes = 64 * 1024;
+  private static final String ExecuteEndpoint = "db/execute", QueryEndpoint = "db/query", LoadEndpoint = "db/load",
+    BackupEndpoint = "db/backup";
+  private static final byte[] SQLiteMagic = "SQLite format 3\0".getBytes(StandardCharsets.US_ASCII);
+
   private final String baseUrl;
   private final String executeURL;
   private final String queryURL;
   private final String statusURL;
   private final String nodesURL;
   private final String readyURL;
+  private final String loadURL;
+  private final String backupURL;
 
   public String basicAuthUser = "";
   private String basicAuthPass = "";
-  private List<L4Response> buffer;
+  private L4TxBuffer buffer;
+
+  private static final String QueueBarrierSql = "SELECT 1";
+  private final NavigableMap<Long, CompletableFuture<Long>> queued = new TreeMap<>();
+  private long queueCommitted = -1;
+
+  private static final long ProbeIntervalNs = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final AtomicLong writeIndex = new AtomicLong(-1), appliedIndex = new AtomicLong(-1);
+  private final AtomicLong nextProbe = new AtomicLong(System.nanoTime());
+  private volatile long probeFailedFor = -1;
 
   public L4Client(String baseURL) {
     this.baseUrl = Objects.requireNonNull(baseURL);
-    this.executeURL = baseURL + "/db/execute";
-    this.queryURL = baseURL + "/db/query";
+    this.executeURL = baseURL + "/" + ExecuteEndpoint;
+    this.queryURL = baseURL + "/" + QueryEndpoint;
     this.statusURL = baseURL + "/status";
     this.nodesURL = baseURL + "/nodes";
     this.readyURL = baseURL + "/readyz";
+    this.loadURL = baseURL + "/" + LoadEndpoint;
+    this.backupURL = baseURL + "/" + BackupEndpoint;
   }
 
-  private static L4HttpResp sendRequest(String url, String method, String body) throws Exception {
+  private HttpURLConnection open(String url, String method, L4Call call) throws Exception {
     URL u = URI.create(url).toURL();
     HttpURLConnection conn = (HttpURLConnection) u.openConnection();
     conn.setRequestMethod(method);
-    int timeoutMs = L4Options.timeoutSec > 0 ? (int) (L4Options.timeoutSec * 1000) : 0;
+    long callMs = call != null && call.hasTimeout() ? call.timeoutMs : L4Options.timeoutSec * 1000;
+    int timeoutMs = callMs > 0 ? (int) Math.min(callMs, Integer.MAX_VALUE) : 0;
     if (timeoutMs > 0) {
       conn.setConnectTimeout(timeoutMs);
       conn.setReadTimeout(timeoutMs);
     }
     conn.setDoInput(true);
+    String authHeader = buildAuthHeader();
+    if (authHeader != null) {
+      conn.setRequestProperty("Authorization", authHeader);
+    }
     if ("POST".equals(method)) {
       conn.setDoOutput(true);
       conn.setRequestProperty("Content-Type", "application/json");
-      if (body != null) {
-        OutputStream os = conn.getOutputStream();
-        os.write(body.getBytes("UTF-8"));
-        os.flush();
-        os.close();
-      }
     }
+    return conn;
+  }
+
+  private static L4HttpResp readResponse(HttpURLConnection conn) throws Exception {
     int status = conn.getResponseCode();
     InputStream is = status >= 400 ? conn.getErrorStream() : conn.getInputStream();
-    String respBody = null;
+    byte[] respBody = null;
     if (is != null) {
-      BufferedReader br = new BufferedReader(new InputStreamReader(is, "UTF-8"));
-      StringBuilder sb = new StringBuilder();
-      String line;
-      while ((line = br.readLine()) != null) {
-        sb.append(line);
-      }
-      br.close();
-      respBody = sb.toString();
+      respBody = L4Buffers.readFully(is, conn.getContentLength());
+      is.close();
     }
     conn.disconnect();
     return new L4HttpResp(status, respBody);
   }
 
-  private L4HttpResp doPostRequest(String url, String body) {
-    int statusCode = -1;
-    try {
-      L4Log.trace("{} - POST {}", this, body);
-      // Add auth via header when sending
-      String authHeader = buildAuthHeader();
-      if (authHeader != null) {
-        // We set header inside sendRequest by passing body; but HttpURLConnection requires header before connect
-        // Here we rely on sendRequest to set Content-Type; we cannot set Authorization there easily without conn reference
-        // Workaround: open connection here to set header, then delegate write/read
-        URL u = URI.create(url).toURL();
-        HttpURLConnection conn = (HttpURLConnection) u.openConnection();
-        conn.setRequestMethod("POST");
-        int timeoutMs = L4Options.timeoutSec > 0 ? (int) (L4Options.timeoutSec * 1000) : 0;
-        if (timeoutMs > 0) {
-          conn.setConnectTimeout(timeoutMs);
-          conn.setReadTimeout(timeoutMs);
-        }
-        conn.setDoInput(true);
-        conn.setDoOutput(true);
-        conn.setRequestProperty("Content-Type", "application/json");
-        conn.setRequestProperty("Authorization", authHeader);
-        if (body != null) {
-          OutputStream os = conn.getOutputStream();
-          os.write(body.getBytes("UTF-8"));
-          os.flush();
-          os.close();
-        }
-        int status = conn.getResponseCode();
-        InputStream is = status >= 400 ? conn.getErrorStream() : conn.getInputStream();
-        String respBody = null;
-        if (is != null) {
-          BufferedReader br = new BufferedReader(new InputStreamReader(is, "UTF-8"));
-          StringBuilder sb = new StringBuilder();
-          String line;
-          while ((line = br.readLine()) != null) {
-            sb.append(line);
-          }
-          br.close();
-          respBody = sb.toString();
-        }
-        conn.disconnect();
-        statusCode = status;
-        return checkResponse(new L4HttpResp(status, respBody));
-      } else {
-        L4HttpResp res = sendRequest(url, "POST", body);
-        statusCode = res.statusCode();
-        return checkResponse(res);
+  /** Writes a request body, returning the number of bytes sent. */
+  private interface Body {
+    long writeTo(HttpURLConnection conn) throws Exception;
+  }
+
+  private static final class CountingOutputStream extends FilterOutputStream {
+    long count;
+    CountingOutputStream(OutputStream out) {
+      super(out);
+    }
+    @Override public void write(int b) throws IOException {
+      out.write(b);
+      count++;
+    }
+    @Override public void write(byte[] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+  }
+
+  private String endpointOf(String url) {
+    int q = url.indexOf('?');
+    return url.substring(baseUrl.length() + 1, q == -1 ? url.length() : q);
+  }
+
+  /** A request body already in memory, <code>bytes[0..length)</code>, which any transport can send. */
+  private static final class Bytes implements Body {
+    final byte[] bytes;
+    final int length;
+    Bytes(byte[] bytes, int length) {
+      this.bytes = bytes;
+      this.length = length;
+    }
+    @Override public long writeTo(HttpURLConnection conn) throws IOException {
+      try (OutputStream os = conn.getOutputStream()) {
+        os.write(bytes, 0, length);
       }
-    } catch (Exception e) {
-      throw new IllegalStateException(format("HTTP POST error: (%d) [%s]", statusCode, url), e);
+      return length;
     }
   }
 
-  private L4HttpResp doJSONPostRequest(String url, String body) {
-    return doPostRequest(url, body);
+  /** Reads the response, by default buffering the whole body. */
+  private interface Reader {
+    L4HttpResp readFrom(HttpURLConnection conn) throws Exception;
   }
 
-  private L4HttpResp doGetRequest(String url) {
+  private static final Reader Buffered = L4Client::readResponse;
+
+  /*
+   * Requests with an in-memory body and a buffered response go through L4Nio for http:// nodes when
+   * enabled, else the runtime's transport, if any (java.net.http on Java 21+). Streamed bodies and
+   * responses stay on HttpURLConnection, and so does insecure TLS, which needs the hostname verifier
+   * only HttpsURLConnection can take.
+   */
+  private static L4Transport transportFor(String url, Body body, Reader reader) {
+    if (reader != Buffered || (body != null && !(body instanceof Bytes))) {
+      return null;
+    }
+    if (L4Options.nio && url.startsWith("http://")) {
+      return L4Nio.get();
+    }
+    if (!L4Options.jdkHttp || L4Http.trustAll) {
+      return null;
+    }
+    return L4Transport.get();
+  }
+
+  private L4HttpResp exchange(String method, String url, Body body) {
+    return exchange(method, url, body, Buffered, null);
+  }
+
+  private L4HttpResp exchange(String method, String url, Body body, Reader reader) {
+    return exchange(method, url, body, reader, null);
+  }
+
+  private L4HttpResp exchange(String method, String url, Body body, Reader reader, L4Call call) {
+    L4Metrics metrics = L4Options.metrics;
     int statusCode = -1;
+    long t0 = System.nanoTime();
     try {
-      String authHeader = buildAuthHeader();
-      URL u = URI.create(url).toURL();
-      HttpURLConnection conn = (HttpURLConnection) u.openConnection();
-      conn.setRequestMethod("GET");
-      int timeoutMs = L4Options.timeoutSec > 0 ? (int) (L4Options.timeoutSec * 1000) : 0;
-      if (timeoutMs > 0) {
-        conn.setConnectTimeout(timeoutMs);
-        conn.setReadTimeout(timeoutMs);
-      }
-      conn.setDoInput(true);
-      if (authHeader != null) {
-        conn.setRequestProperty("Authorization", authHeader);
-      }
-      int status = conn.getResponseCode();
-      InputStream is = status >= 400 ? conn.getErrorStream() : conn.getInputStream();
-      String respBody = null;
-      if (is != null) {
-        BufferedReader br = new BufferedReader(new InputStreamReader(is, "UTF-8"));
-        StringBuilder sb = new StringBuilder();
-        String line;
-        while ((line = br.readLine()) != null) {
-          sb.append(line);
+      L4Transport transport = transportFor(url, body, reader);
+      long sent;
+      L4HttpResp res;
+      if (transport != null) {
+        Bytes bytes = (Bytes) body;
+        sent = bytes != null ? bytes.length : 0;
+        res = transport.send(method, url, buildAuthHeader(), bytes != null ? bytes.bytes : null, (int) sent, call);
+      } else {
+        HttpURLConnection conn = open(url, method, call);
+        if (call != null) {
+          call.attach(conn::disconnect);
         }
-        br.close();
-        respBody = sb.toString();
+        sent = body != null ? body.writeTo(conn) : 0;
+        res = reader.readFrom(conn);
       }
-      conn.disconnect();
-      statusCode = status;
-      return checkResponse(new L4HttpResp(status, respBody));
+      if (call != null) {
+        call.check(); // aborted while the response was read
+      }
+      statusCode = res.statusCode();
+      byte[] rb = res.bytes();
+      res.requestBytes = sent;
+      metrics.onRequest(endpointOf(url), System.nanoTime() - t0, sent, rb != null ? rb.length : res.streamedBytes, statusCode);
+      return checkResponse(res);
     } catch (Exception e) {
-      throw new IllegalStateException(format("HTTP GET error: (%d) [%s]", statusCode, url), e);
+      if (statusCode == -1) {
+        metrics.onError(endpointOf(url), e);
+      }
+      if (call != null && call.isAborted()) {
+        throw new IllegalStateException(format("HTTP %s aborted: %s [%s]", method, call, url), e);
+      }
+      throw new IllegalStateException(format("HTTP %s error: (%d) [%s]", method, statusCode, url), e);
+    } finally {
+      if (call != null) {
+        call.detach();
+      }
+    }
+  }
+
+  /*
+   * The statements are encoded into a pooled array, given back once the exchange is over. A failed
+   * or aborted exchange may leave a transport still reading it, so the array is dropped instead.
+   */
+  private L4HttpResp doPostRequest(String url, JsonValue body, L4Call call) {
+    L4Buffers.Utf8Sink sink = new L4Buffers.Utf8Sink();
+    try {
+      body.writeTo(sink);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to encode request body", e);
+    }
+    sink.close();
+    if (L4Log.isTraceEnabled()) {
+      L4Log.trace("{} - POST {}", this, new String(sink.array(), 0, sink.size(), StandardCharsets.UTF_8));
+    }
+    L4HttpResp res = exchange("POST", url, new Bytes(sink.array(), sink.size()), Buffered, call);
+    sink.release();
+    return res;
+  }
+
+  /**
+   * Writes the statement array straight into a chunked request body, so stream
+   * parameters are encoded as they are sent instead of being buffered first.
+   */
+  private L4HttpResp doStreamingPostRequest(String url, L4Statement[] statements, L4Call call) {
+    if (L4Log.isTraceEnabled()) {
+      L4Log.trace("{} - POST (streamed) {}", this, Arrays.toString(statements));
     }
+    return exchange("POST", url, conn -> {
+      conn.setChunkedStreamingMode(StreamChunkBytes);
+      CountingOutputStream os = new CountingOutputStream(conn.getOutputStream());
+      try (Writer w = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), StreamChunkBytes)) {
+        L4Statement.toArray(statements).writeTo(w);
+      }
+      return os.count;
+    }, Buffered, call);
+  }
+
+  private L4HttpResp doJSONPostRequest(String url, L4Statement[] statements, L4Call call) {
+    if (L4Statement.hasStreams(statements)) {
+      return doStreamingPostRequest(url, statements, call);
+    }
+    return doPostRequest(url, L4Statement.toArray(statements), call);
+  }
+
+  private L4HttpResp doGetRequest(String url) {
+    return exchange("GET", url, null);
+  }
+
+  private L4Response post(String endpoint, String url, L4Statement[] statements) {
+    return post(endpoint, url, statements, null);
+  }
+
+  private L4Response post(String endpoint, String url, L4Statement[] statements, L4Call call) {
+    return post(endpoint, statements, statements.length, () -> doJSONPostRequest(url, statements, call));
+  }
+
+  /**
+   * Sends a statement request and decodes the response. The statements are only used for events and
+   * the slow query log, <code>count</code> is the number of statements actually sent.
+   */
+  private L4Response post(String endpoint, L4Statement[] statements, int count, Supplier<L4HttpResp> send) {
+    Object event = L4Events.beginRequest();
+    long start = System.nanoTime();
+    L4HttpResp resp = send.get();
+    Object parseEvent = L4Events.beginParse();
+    long t0 = System.nanoTime();
+    L4Response res = response(resp.statusCode(), resp.bytes());
+    long parseNanos = System.nanoTime() - t0;
+    L4Events.endParse(parseEvent, resp, res);
+    L4Options.metrics.onResponse(endpoint, res, parseNanos);
+    if (res.raftIndex != null) {
+      writeIndex.accumulateAndGet(res.raftIndex, Math::max);
+    }
+    L4Events.endRequest(event, endpoint, statements, count, resp, res, parseNanos);
+    if (L4SlowLog.isEnabled()) {
+      L4SlowLog.record(this, endpoint, statements, count, res, System.nanoTime() - start);
+    }
+    return res;
   }
 
   private String buildAuthHeader() {
@@ -199,41 +339,134 @@ public class L4Client implements Closeable {
 
   public void startBuffer() {
     if (buffer == null) {
-      buffer = new ArrayList<L4Response>();
+      buffer = new L4TxBuffer(L4Options.txSpillBytes);
     }
   }
 
-  private L4Response doExecute(boolean transaction, L4Statement ... statements) {
-    String queryParams = L4Options.queryParams(transaction);
-    String url = executeURL + queryParams;
-    String body = L4Statement.toArray(statements).toString();
-    L4HttpResp resp = doJSONPostRequest(url, body);
-    String rb = resp.body();
-    JsonObject node = Json.parse(rb).asObject();
-    return response(resp.statusCode(), node);
+  private L4Response doExecute(L4Call call, boolean transaction, L4Statement ... statements) {
+    String queryParams = L4Options.queryParams(transaction, call);
+    return post(ExecuteEndpoint, executeURL + queryParams, statements, call);
+  }
+
+  private L4Response commit(L4TxBuffer tx) {
+    String url = executeURL + L4Options.queryParams(true);
+    L4Log.trace("{} - POST (buffered) {}", this, tx);
+    return post(ExecuteEndpoint, tx.summary(), tx.count(), () -> exchange("POST", url, tx::writeTo));
   }
 
   public void stopBuffer(boolean commit, Consumer<L4Response> responseFn) {
-    if (commit && buffer != null && !buffer.isEmpty()) {
-      L4Statement[] statements = buffer.stream()
-        .flatMap(res -> Arrays.stream(res.statements))
-        .toArray(L4Statement[]::new);
-      buffer.clear();
-      responseFn.accept(doExecute(true, statements));
+    L4TxBuffer tx = buffer;
+    if (tx == null) {
+      return;
     }
-    buffer = null;
+    boolean done = false;
+    try {
+      if (commit && tx.count() > 0) {
+        responseFn.accept(commit(tx));
+      }
+      done = true;
+    } finally {
+      tx.close();
+      // a failed commit loses the buffered statements, but the transaction stays open
+      buffer = done ? null : new L4TxBuffer(L4Options.txSpillBytes);
+    }
+  }
+
+  /** The current position in the open transaction, for savepoints. */
+  public L4TxMark mark() {
+    if (buffer == null) {
+      throw new IllegalStateException("No transaction in progress");
+    }
+    return buffer.mark();
+  }
+
+  /**
+   * Discards the statements deferred after <code>mark</code>, locally and without contacting rqlite,
+   * since nothing is sent until commit.
+   */
+  public void rollbackTo(L4TxMark mark) {
+    if (buffer == null) {
+      throw new IllegalStateException("No transaction in progress");
+    }
+    L4Log.trace("{} - rollback to {}", this, mark);
+    buffer.rollbackTo(mark);
   }
 
   public L4Response execute(boolean transaction, L4Statement ... statements) {
+    return execute(null, transaction, statements);
+  }
+
+  /**
+   * Runs the statements as a single request bound to <code>call</code> (which may be null), so its
+   * deadline applies and it can be cancelled. Statements deferred into an open transaction do not
+   * reach rqlite here, and the call has no effect on them.
+   */
+  public L4Response execute(L4Call call, boolean transaction, L4Statement ... statements) {
     if (isBuffering()) {
-      L4Log.trace("{} - defer: {}", this, Arrays.toString(statements));
+      if (L4Log.isTraceEnabled()) {
+        L4Log.trace("{} - defer: {}", this, Arrays.toString(statements));
+      }
+      for (L4Statement st : statements) {
+        buffer.add(st); // encoded now, caller streams may be closed before commit
+      }
       L4Response res = deferred(statements);
       res.results = new ArrayList<L4Result>();
       res.results.add(new L4Result(new JsonObject()));
-      this.buffer.add(res);
       return res;
     }
-    return doExecute(transaction, statements);
+    return doExecute(call, transaction, statements);
+  }
+
+  /**
+   * Sends writes with <code>queue=true</code>: rqlite acknowledges them right away and applies
+   * them in batches. The response carries the batch {@link L4Response#sequenceNumber}, which can
+   * be passed to {@link #whenCommitted(long)}. Queued writes bypass transaction buffering.
+   */
+  public L4Response executeQueued(L4Statement ... statements) {
+    if (isBuffering()) {
+      throw new IllegalStateException("Queued writes cannot be part of a transaction");
+    }
+    return post(ExecuteEndpoint, executeURL + L4Options.queryParams(false, true, false), statements);
+  }
+
+  /**
+   * Completes once a {@link #flushQueue()} barrier at or past the given sequence number returns,
+   * with the barrier's sequence number. Queued batches are applied in order, so every write up to
+   * the barrier is committed by then.
+   */
+  public CompletableFuture<Long> whenCommitted(long sequenceNumber) {
+    synchronized (queued) {
+      if (sequenceNumber <= queueCommitted) {
+        return CompletableFuture.completedFuture(queueCommitted);
+      }
+      return queued.computeIfAbsent(sequenceNumber, seq -> new CompletableFuture<>());
+    }
+  }
+
+  /**
+   * Sends a queued no-op with <code>wait=true</code>, which returns once rqlite has flushed the
+   * queue up to and including it, then completes the matching {@link #whenCommitted} futures.
+   *
+   * @return the sequence number confirmed as committed.
+   */
+  public long flushQueue() {
+    L4Statement barrier = new L4Statement().sql(QueueBarrierSql);
+    L4Response res = post(ExecuteEndpoint, executeURL + L4Options.queryParams(false, true, true), new L4Statement[] {barrier});
+    if (res.sequenceNumber == null) {
+      throw new IllegalStateException(format("No queue sequence number in response: %s", res));
+    }
+    long seq = res.sequenceNumber;
+    List<CompletableFuture<Long>> done;
+    synchronized (queued) {
+      queueCommitted = Math.max(queueCommitted, seq);
+      NavigableMap<Long, CompletableFuture<Long>> head = queued.headMap(seq, true);
+      done = new ArrayList<>(head.values());
+      head.clear();
+    }
+    for (CompletableFuture<Long> f : done) {
+      f.complete(seq);
+    }
+    return seq;
   }
 
   public L4Response executeSingle(String statement, Object... args) {
@@ -243,12 +476,66 @@ public class L4Client implements Closeable {
   }
 
   public L4Response query(L4Statement ... statements) {
-    String body = L4Statement.toArray(statements).toString();
-    String queryParams = L4Options.queryParams(false);
-    L4HttpResp resp = doJSONPostRequest(queryURL + queryParams, body);
-    String rb = resp.body();
-    JsonObject node = Json.parse(rb).asObject();
-    return response(resp.statusCode(), node);
+    return query(null, statements);
+  }
+
+  /** Raft index of this client's latest write, -1 unless {@link L4Options#readYourWrites} is on. */
+  public long getWriteIndex() {
+    return writeIndex.get();
+  }
+
+  /* The applied index of the node behind baseUrl, -1 when unavailable. */
+  private long nodeAppliedIndex() {
+    try {
+      JsonValue raft = status().asObject().get("store").asObject().get("raft");
+      JsonValue applied = raft != null ? raft.asObject().get("applied_index") : null;
+      if (applied == null) {
+        return -1;
+      }
+      return applied.isNumber() ? applied.asLong() : Long.parseLong(applied.asString());
+    } catch (Exception e) {
+      L4Log.debug("{} - unable to read applied index - {}", this, e.toString());
+      return -1;
+    }
+  }
+
+  /**
+   * A <code>none</code> level read is answered by whichever node gets it, which may not have applied
+   * this client's last write yet. With {@link L4Options#readYourWrites}, the node's applied index is
+   * checked (until it catches up with the write) and reads are sent at <code>weak</code> level, so
+   * the leader answers them, while the node is behind. The index is read at most once every 100ms,
+   * and not again until the next write once reading it fails.
+   */
+  private L4Level readLevel(L4Call call) {
+    L4Level level = call != null && call.level != null ? call.level : L4Options.level;
+    if (!L4Options.readYourWrites || level != L4Level.none) {
+      return level;
+    }
+    long written = writeIndex.get();
+    if (written <= appliedIndex.get()) {
+      return level;
+    }
+    long now = System.nanoTime(), next = nextProbe.get();
+    if (written == probeFailedFor || now - next < 0 || !nextProbe.compareAndSet(next, now + ProbeIntervalNs)) {
+      return L4Level.weak;
+    }
+    long probed = nodeAppliedIndex();
+    if (probed == -1) {
+      probeFailedFor = written;
+    }
+    long applied = appliedIndex.accumulateAndGet(probed, Math::max);
+    if (applied >= written) {
+      return level;
+    }
+    L4Log.debug("{} - node applied index {} behind write {}, reading from the leader", this, applied, written);
+    return L4Level.weak;
+  }
+
+  /** Reads with the call's consistency settings, or those hinted in the first statement's SQL. */
+  public L4Response query(L4Call call, L4Statement ... statements) {
+    L4Call c = statements.length > 0 ? L4Call.withHints(call, statements[0].sql) : call;
+    String queryParams = L4Options.queryParams(false, c, readLevel(c));
+    return post(QueryEndpoint, queryURL + queryParams, statements, c);
   }
 
   public L4Response querySingle(String statement, Object... args) {
@@ -257,14 +544,137 @@ public class L4Client implements Closeable {
     return res;
   }
 
+  private static boolean isSQLiteFile(FileChannel ch) throws IOException {
+    ByteBuffer head = ByteBuffer.allocate(SQLiteMagic.length);
+    while (head.hasRemaining() && ch.read(head, head.position()) > 0) {
+      // read the header
+    }
+    return !head.hasRemaining() && Arrays.equals(head.array(), SQLiteMagic);
+  }
+
+  /**
+   * Loads a SQLite database file or a SQL text dump into rqlite through <code>/db/load</code>,
+   * replacing the current database contents. The file is sent straight from disk with a fixed
+   * length body, so its size is not bound by the heap. Database files are recognized by their
+   * header. The read timeout is lifted for the duration of the load, since restoring large
+   * datasets takes longer than regular requests.
+   */
+  public L4Response load(Path file) {
+    if (isBuffering()) {
+      throw new IllegalStateException("Cannot load a database inside a transaction");
+    }
+    L4Log.debug("{} - load {}", this, file);
+    L4HttpResp resp = exchange("POST", loadURL, conn -> {
+      try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+        long size = ch.size();
+        conn.setRequestProperty("Content-Type", isSQLiteFile(ch) ? "application/octet-stream" : "text/plain");
+        conn.setFixedLengthStreamingMode(size);
+        conn.setReadTimeout(0);
+        try (OutputStream os = conn.getOutputStream()) {
+          WritableByteChannel out = Channels.newChannel(os);
+          long pos = 0;
+          while (pos < size) {
+            long n = ch.transferTo(pos, size - pos, out);
+            if (n <= 0) {
+              throw new IOException(format("%s changed while loading, %d of %d bytes sent", file, pos, size));
+            }
+            pos += n;
+          }
+        }
+        return size;
+      }
+    });
+    byte[] body = resp.bytes();
+    if (body == null || body.length == 0) {
+      L4Response res = new L4Response();
+      res.statusCode = resp.statusCode();
+      res.results = new ArrayList<L4Result>();
+      return res;
+    }
+    return response(resp.statusCode(), body);
+  }
+
+  /**
+   * Streams a <code>/db/backup</code> snapshot to a file, through a fixed size buffer so memory use
+   * does not depend on the database size. The snapshot is written to a temp file next to the target
+   * and moved into place once complete, so a failed backup never leaves a truncated file behind.
+   * As with {@link #load(Path)}, the read timeout is lifted while the backup runs.
+   *
+   * @param file the backup file to create or replace.
+   * @param format a SQLite database file, or a SQL text dump.
+   * @param compress ask rqlite to gzip the snapshot.
+   * @param progress called with the number of bytes written so far after every chunk, may be null.
+   * @return the size of the backup file.
+   */
+  public long backup(Path file, L4Backup format, boolean compress, LongConsumer progress) {
+    String params = format == L4Backup.sql ? "?fmt=sql" : "";
+    if (compress) {
+      params = params.isEmpty() ? "?compress" : params + "&compress";
+    }
+    L4Log.debug("{} - backup {} {}", this, file, params);
+    Path dir = file.toAbsolutePath().getParent();
+    Path tmp = null;
+    try {
+      Path part = Files.createTempFile(dir, file.getFileName().toString(), ".part");
+      tmp = part;
+      L4HttpResp resp = exchange("GET", backupURL + params, null, conn -> {
+        conn.setReadTimeout(0);
+        if (conn.getResponseCode() != 200) {
+          return readResponse(conn);
+        }
+        long written = 0;
+        try (ReadableByteChannel in = Channels.newChannel(conn.getInputStream());
+             FileChannel out = FileChannel.open(part, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+          ByteBuffer buf = ByteBuffer.allocateDirect(StreamChunkBytes);
+          while (in.read(buf) != -1) {
+            buf.flip();
+            while (buf.hasRemaining()) {
+              written += out.write(buf);
+            }
+            buf.clear();
+            if (progress != null) {
+              progress.accept(written);
+            }
+          }
+          long expected = conn.getContentLengthLong();
+          if (expected >= 0 && written != expected) {
+            throw new IOException(format("Backup ended after %d of %d bytes", written, expected));
+          }
+          out.force(false);
+        }
+        conn.disconnect();
+        L4HttpResp res = new L4HttpResp(200, (byte[]) null);
+        res.streamedBytes = written;
+        return res;
+      });
+      Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      tmp = null;
+      return resp.streamedBytes;
+    } catch (IOException e) {
+      throw new IllegalStateException(format("Unable to write backup to [%s]", file), e);
+    } finally {
+      if (tmp != null) {
+        try {
+          Files.deleteIfExists(tmp);
+        } catch (IOException e) {
+          L4Log.warn("{} - unable to delete {} - {}", this, tmp, e.toString());
+        }
+      }
+    }
+  }
+
+  public long backup(Path file, L4Backup format) {
+    return backup(file, format, false, null);
+  }
+
   public JsonValue status() {
     L4HttpResp resp = doGetRequest(statusURL);
-    return Json.parse(resp.body());
+    return Json.parse(resp.bytes());
   }
 
   public JsonValue nodes() {
     L4HttpResp resp = doGetRequest(nodesURL);
-    return Json.parse(resp.body());
+    return Json.parse(resp.bytes());
   }
 
   public String ready() {
@@ -288,10 +698,14 @@ public class L4Client implements Closeable {
   }
 
   @Override public void close() {
-    // nothing to close for HttpURLConnection
+    // nothing to close for HttpURLConnection, only a pending transaction's spill file
+    if (buffer != null) {
+      buffer.close();
+      buffer = null;
+    }
   }
 
   @Override public String toString() {
-    return String.format("l4c [%08x, %03d]", this.hashCode(), buffer == null ? -1 : buffer.size());
+    return String.format("l4c [%08x, %03d]", this.hashCode(), buffer == null ? -1 : buffer.count());
   }
 }
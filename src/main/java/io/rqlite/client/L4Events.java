@@ -0,0 +1,33 @@
+package io.rqlite.client;
+
+/**
+ * Flight recorder hooks for the driver hot paths. This Java 8 build does nothing; on Java 11+ the
+ * multi-release jar replaces it with a version that emits <code>jdk.jfr</code> events
+ * (see <code>src/main/java11</code>), which cost next to nothing unless a recording is running.
+ * Callers keep the returned token and hand it back when the operation ends, a <code>null</code>
+ * token means the event is disabled.
+ */
+public final class L4Events {
+
+  private L4Events() {}
+
+  static Object beginRequest() {
+    return null;
+  }
+
+  static void endRequest(Object event, String endpoint, L4Statement[] statements, int count,
+                         L4HttpResp http, L4Response response, long parseNanos) {}
+
+  static Object beginParse() {
+    return null;
+  }
+
+  static void endParse(Object event, L4HttpResp http, L4Response response) {}
+
+  public static Object beginResultSet() {
+    return null;
+  }
+
+  public static void endResultSet(Object event, L4Result result, int rowsRead) {}
+
+}
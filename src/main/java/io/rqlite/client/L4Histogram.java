@@ -0,0 +1,133 @@
+package io.rqlite.client;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear histogram, in the spirit of HdrHistogram. Each power of two range is split
+ * into 32 linear sub-buckets, so recorded values are kept with ~3% relative precision over the
+ * whole long range in a fixed ~15KB array. Recording is a single atomic increment plus adders.
+ */
+public final class L4Histogram {
+
+  private static final int SubBits = 5;
+  private static final int Sub = 1 << SubBits;
+  private static final int Buckets = (64 - SubBits) * Sub;
+
+  private final AtomicLongArray counts = new AtomicLongArray(Buckets);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+  static int indexOf(long value) {
+    if (value < Sub) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SubBits;
+    int sub = (int) (value >>> shift) & (Sub - 1);
+    return (shift + 1) * Sub + sub;
+  }
+
+  static long lowestOf(int index) {
+    if (index < Sub) {
+      return index;
+    }
+    int shift = index / Sub - 1;
+    return (long) (Sub + index % Sub) << shift;
+  }
+
+  static long highestOf(int index) {
+    return index + 1 < Buckets ? lowestOf(index + 1) - 1 : Long.MAX_VALUE;
+  }
+
+  public void record(long value) {
+    long v = Math.max(0, value);
+    counts.incrementAndGet(indexOf(v));
+    count.increment();
+    sum.add(v);
+    max.accumulate(v);
+  }
+
+  /** Adds all values recorded in another histogram into this one. */
+  public void add(L4Histogram other) {
+    for (int i = 0; i < Buckets; i++) {
+      long n = other.counts.get(i);
+      if (n != 0) {
+        counts.addAndGet(i, n);
+      }
+    }
+    count.add(other.count.sum());
+    sum.add(other.sum.sum());
+    max.accumulate(other.max.get());
+  }
+
+  public void reset() {
+    for (int i = 0; i < Buckets; i++) {
+      counts.set(i, 0);
+    }
+    count.reset();
+    sum.reset();
+    max.reset();
+  }
+
+  public Snapshot snapshot() {
+    long[] copy = new long[Buckets];
+    long total = 0;
+    for (int i = 0; i < Buckets; i++) {
+      copy[i] = counts.get(i);
+      total += copy[i];
+    }
+    long mx = max.get();
+    return new Snapshot(
+      total, total == 0 ? 0 : (double) sum.sum() / total,
+      valueAt(copy, total, 0.50, mx), valueAt(copy, total, 0.90, mx),
+      valueAt(copy, total, 0.99, mx), valueAt(copy, total, 0.999, mx), mx
+    );
+  }
+
+  private static long valueAt(long[] counts, long total, double quantile, long max) {
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(quantile * total));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(highestOf(i), max);
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Point-in-time view of a histogram; values are in the unit they were recorded in. The driver
+   * records nanoseconds, which {@link #toString()} renders as milliseconds.
+   */
+  public static final class Snapshot {
+
+    public final long count;
+    public final double mean;
+    public final long p50, p90, p99, p999, max;
+
+    Snapshot(long count, double mean, long p50, long p90, long p99, long p999, long max) {
+      this.count = count;
+      this.mean = mean;
+      this.p50 = p50;
+      this.p90 = p90;
+      this.p99 = p99;
+      this.p999 = p999;
+      this.max = max;
+    }
+
+    @Override public String toString() {
+      return String.format(
+        "[n: %d, mean: %.3fms, p50: %.3fms, p90: %.3fms, p99: %.3fms, p999: %.3fms, max: %.3fms]",
+        count, mean / 1e6, p50 / 1e6, p90 / 1e6, p99 / 1e6, p999 / 1e6, max / 1e6
+      );
+    }
+
+  }
+
+}
@@ -10,6 +10,10 @@ import java.security.cert.X509Certificate;
 
 public class L4Http {
 
+  // the last context installed below, for transports that do not use HttpsURLConnection
+  static volatile SSLContext sslContext;
+  static volatile boolean    trustAll;
+
   // Configure global HTTPS to trust all certificates (insecure)
   public static void configureInsecureTLS() throws Exception {
     SSLContext sslContext = SSLContext.getInstance("TLS");
@@ -25,6 +29,8 @@ public class L4Http {
     HttpsURLConnection.setDefaultHostnameVerifier(new HostnameVerifier() {
       @Override public boolean verify(String hostname, SSLSession session) { return true; }
     });
+    L4Http.sslContext = sslContext;
+    L4Http.trustAll = true;
   }
 
   // Configure global HTTPS to trust the provided CA certificate
@@ -53,5 +59,7 @@ public class L4Http {
 
     HttpsURLConnection.setDefaultSSLSocketFactory(sslContext.getSocketFactory());
     // Use default hostname verifier; do not override
+    L4Http.sslContext = sslContext;
+    L4Http.trustAll = false;
   }
 }
@@ -1,26 +1,49 @@
 package io.rqlite.client;
 
+import java.nio.charset.StandardCharsets;
+
 public class L4HttpResp {
   private final int statusCode;
-  private final String body;
+  private final byte[] bytes;
+  private String body;
+  long requestBytes;
+  long streamedBytes; // response body bytes consumed by the caller instead of being buffered
 
   public L4HttpResp(int statusCode, String body) {
     this.statusCode = statusCode;
+    this.bytes = null;
     this.body = body;
   }
 
+  public L4HttpResp(int statusCode, byte[] bytes) {
+    this.statusCode = statusCode;
+    this.bytes = bytes;
+  }
+
   public int statusCode() {
     return statusCode;
   }
 
+  /** Raw UTF-8 response body, for parsing without decoding it first. */
+  public byte[] bytes() {
+    if (bytes == null && body != null) {
+      return body.getBytes(StandardCharsets.UTF_8);
+    }
+    return bytes;
+  }
+
+  /** Response body text, with line breaks removed. */
   public String body() {
+    if (body == null && bytes != null) {
+      body = new String(bytes, StandardCharsets.UTF_8).replaceAll("\\r\\n|\\r|\\n", "");
+    }
     return body;
   }
 
   @Override public String toString() {
     return "L4HttpResp{" +
       "statusCode=" + statusCode +
-      ", body=" + (body == null ? "null" : body) +
+      ", body=" + (body() == null ? "null" : body()) +
       '}';
   }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package io.rqlite.client;
 
 import io.rqlite.json.Json;
 import io.rqlite.json.JsonArray;
+import io.rqlite.json.JsonStream;
 import io.rqlite.json.JsonValue;
 
 import java.util.*;
@@ -33,9 +34,15 @@ public class L4Json {
     return values;
   }
 
+  public static boolean isStream(Object value) {
+    return value instanceof JsonStream;
+  }
+
   public static JsonValue toJsonValue(Object value) {
     if (value == null) {
       return Json.NULL;
+    } else if (value instanceof JsonValue) {
+      return (JsonValue) value;
     } else if (value instanceof String) {
       return Json.value((String) value);
     } else if (value instanceof Integer) {
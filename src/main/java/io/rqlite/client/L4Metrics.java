@@ -0,0 +1,25 @@
+package io.rqlite.client;
+
+/**
+ * Receives timing and volume events from {@link L4Client}. Install an implementation through
+ * {@link L4Options#metrics}; {@link L4MetricsRegistry} is the built-in aggregating one. Callbacks
+ * run on the calling thread in the request path, so implementations must be cheap and thread safe.
+ * Endpoint names are the rqlite API paths without the leading slash, like <code>db/query</code>.
+ */
+public interface L4Metrics {
+
+  /** An HTTP exchange completed; latency covers connect, send and reading the full response body. */
+  default void onRequest(String endpoint, long latencyNanos, long requestBytes, long responseBytes, int status) {}
+
+  /** A response body was decoded into an {@link L4Response}. */
+  default void onResponse(String endpoint, L4Response response, long parseNanos) {}
+
+  /** A request was retried. */
+  default void onRetry(String endpoint) {}
+
+  /** A request failed before a response could be returned. */
+  default void onError(String endpoint, Throwable error) {}
+
+  L4Metrics None = new L4Metrics() {};
+
+}
@@ -0,0 +1,188 @@
+package io.rqlite.client;
+
+import io.rqlite.jdbc.L4Log;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Aggregates {@link L4Metrics} events per endpoint: client latency, server reported time
+ * (<code>timings=true</code>), response decode time, bytes, rows, retries and errors. Comparing
+ * the latency, server and parse histograms tells network, rqlite and JSON time apart.
+ */
+public class L4MetricsRegistry implements L4Metrics, L4MetricsRegistryMBean {
+
+  public static final String ObjectNameStr = "io.rqlite:type=L4Metrics";
+
+  private static L4MetricsRegistry global;
+
+  /** The registry shared by all connections, registered with the platform MBean server on first use. */
+  public static synchronized L4MetricsRegistry global() {
+    if (global == null) {
+      global = new L4MetricsRegistry();
+      try {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(global, new ObjectName(ObjectNameStr));
+      } catch (Exception e) {
+        L4Log.warn("Unable to register {} - {}", ObjectNameStr, e.toString());
+      }
+    }
+    return global;
+  }
+
+  public static class Endpoint {
+    public final L4Histogram latency = new L4Histogram();
+    public final L4Histogram server = new L4Histogram();
+    public final L4Histogram parse = new L4Histogram();
+    public final LongAdder requests = new LongAdder();
+    public final LongAdder errors = new LongAdder();
+    public final LongAdder statementErrors = new LongAdder();
+    public final LongAdder retries = new LongAdder();
+    public final LongAdder bytesSent = new LongAdder();
+    public final LongAdder bytesReceived = new LongAdder();
+    public final LongAdder rows = new LongAdder();
+
+    void reset() {
+      latency.reset();
+      server.reset();
+      parse.reset();
+      requests.reset();
+      errors.reset();
+      statementErrors.reset();
+      retries.reset();
+      bytesSent.reset();
+      bytesReceived.reset();
+      rows.reset();
+    }
+  }
+
+  public static class Snapshot {
+    public final long requests, errors, statementErrors, retries, bytesSent, bytesReceived, rows;
+    public final L4Histogram.Snapshot latency, server, parse;
+
+    Snapshot(Endpoint e) {
+      this.requests = e.requests.sum();
+      this.errors = e.errors.sum();
+      this.statementErrors = e.statementErrors.sum();
+      this.retries = e.retries.sum();
+      this.bytesSent = e.bytesSent.sum();
+      this.bytesReceived = e.bytesReceived.sum();
+      this.rows = e.rows.sum();
+      this.latency = e.latency.snapshot();
+      this.server = e.server.snapshot();
+      this.parse = e.parse.snapshot();
+    }
+
+    @Override public String toString() {
+      return String.format(
+        "[req: %d, err: %d, stErr: %d, retry: %d, out: %dB, in: %dB, rows: %d, latency: %s, server: %s, parse: %s]",
+        requests, errors, statementErrors, retries, bytesSent, bytesReceived, rows, latency, server, parse
+      );
+    }
+  }
+
+  private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+  public Endpoint endpoint(String name) {
+    Endpoint e = endpoints.get(name);
+    return e != null ? e : endpoints.computeIfAbsent(name, k -> new Endpoint());
+  }
+
+  @Override public void onRequest(String endpoint, long latencyNanos, long requestBytes, long responseBytes, int status) {
+    Endpoint e = endpoint(endpoint);
+    e.requests.increment();
+    e.latency.record(latencyNanos);
+    e.bytesSent.add(Math.max(0, requestBytes));
+    e.bytesReceived.add(Math.max(0, responseBytes));
+    if (status != 200) {
+      e.errors.increment();
+    }
+  }
+
+  @Override public void onResponse(String endpoint, L4Response response, long parseNanos) {
+    Endpoint e = endpoint(endpoint);
+    e.parse.record(parseNanos);
+    if (response.time != null) {
+      e.server.record((long) (response.time * 1_000_000_000d));
+    }
+    long rows = 0;
+    for (L4Result res : response.results) {
+      if (res.error != null) {
+        e.statementErrors.increment();
+      } else if (res.values != null) {
+        rows += res.values.size();
+      }
+    }
+    e.rows.add(rows);
+  }
+
+  @Override public void onRetry(String endpoint) {
+    endpoint(endpoint).retries.increment();
+  }
+
+  @Override public void onError(String endpoint, Throwable error) {
+    endpoint(endpoint).errors.increment();
+  }
+
+  public Map<String, Snapshot> snapshot() {
+    Map<String, Snapshot> out = new TreeMap<>();
+    endpoints.forEach((name, e) -> out.put(name, new Snapshot(e)));
+    return out;
+  }
+
+  private long total(Function<Endpoint, LongAdder> fn) {
+    long n = 0;
+    for (Endpoint e : endpoints.values()) {
+      n += fn.apply(e).sum();
+    }
+    return n;
+  }
+
+  private L4Histogram.Snapshot merged(Function<Endpoint, L4Histogram> fn) {
+    L4Histogram all = new L4Histogram();
+    for (Endpoint e : endpoints.values()) {
+      all.add(fn.apply(e));
+    }
+    return all.snapshot();
+  }
+
+  @Override public String[] getEndpoints() {
+    return snapshot().keySet().toArray(new String[0]);
+  }
+
+  @Override public long getRequests() { return total(e -> e.requests); }
+  @Override public long getErrors() { return total(e -> e.errors); }
+  @Override public long getStatementErrors() { return total(e -> e.statementErrors); }
+  @Override public long getRetries() { return total(e -> e.retries); }
+  @Override public long getBytesSent() { return total(e -> e.bytesSent); }
+  @Override public long getBytesReceived() { return total(e -> e.bytesReceived); }
+  @Override public long getRowsReturned() { return total(e -> e.rows); }
+
+  @Override public double getLatencyP50Ms() { return merged(e -> e.latency).p50 / 1e6; }
+  @Override public double getLatencyP99Ms() { return merged(e -> e.latency).p99 / 1e6; }
+  @Override public double getLatencyMaxMs() { return merged(e -> e.latency).max / 1e6; }
+  @Override public double getServerTimeP50Ms() { return merged(e -> e.server).p50 / 1e6; }
+  @Override public double getServerTimeP99Ms() { return merged(e -> e.server).p99 / 1e6; }
+  @Override public double getParseP99Ms() { return merged(e -> e.parse).p99 / 1e6; }
+
+  @Override public double getBufferHitRate() { return L4Buffers.stats().hitRate(); }
+  @Override public long getBufferMisses() { return L4Buffers.stats().misses; }
+
+  @Override public String describe(String endpoint) {
+    Endpoint e = endpoints.get(endpoint);
+    return e != null ? new Snapshot(e).toString() : null;
+  }
+
+  @Override public void reset() {
+    endpoints.values().forEach(Endpoint::reset);
+  }
+
+  @Override public String toString() {
+    return snapshot().toString();
+  }
+
+}
@@ -0,0 +1,31 @@
+package io.rqlite.client;
+
+/** JMX view of {@link L4MetricsRegistry}, totals across all endpoints. Times are in milliseconds. */
+public interface L4MetricsRegistryMBean {
+
+  String[] getEndpoints();
+
+  long getRequests();
+  long getErrors();
+  long getStatementErrors();
+  long getRetries();
+  long getBytesSent();
+  long getBytesReceived();
+  long getRowsReturned();
+
+  double getLatencyP50Ms();
+  double getLatencyP99Ms();
+  double getLatencyMaxMs();
+  double getServerTimeP50Ms();
+  double getServerTimeP99Ms();
+  double getParseP99Ms();
+
+  /** Share of {@link L4Buffers} requests served from the pool. */
+  double getBufferHitRate();
+  long getBufferMisses();
+
+  String describe(String endpoint);
+
+  void reset();
+
+}
@@ -0,0 +1,588 @@
+package io.rqlite.client;
+
+import io.rqlite.jdbc.L4Log;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.lang.String.format;
+
+/**
+ * Non-blocking HTTP/1.1 transport for plain <code>http</code> nodes, enabled with {@link L4Options#nio}.
+ * A single selector thread drives every socket: requests are queued per node and pipelined over up
+ * to {@link L4Options#nioConnections} keep-alive connections, with at most
+ * {@link L4Options#nioPipeline} in flight on each, and responses are matched to requests in order.
+ * Socket I/O goes through direct buffers from {@link L4Buffers}, and each response body is read
+ * into a single array which {@link L4Client} hands to the JSON decoder as is.
+ * <p>
+ * Callers only block on a future, so thousands of concurrent requests need no more than a few
+ * sockets and one thread. A request aborted by its {@link L4Call} fails right away, while its
+ * response is still read and dropped to keep the pipeline in order. When a connection breaks or
+ * cannot be opened, requests not yet written move to another one (three attempts at most), and
+ * requests already written fail, since the node may have applied them.
+ */
+final class L4Nio extends L4Transport implements Runnable {
+
+  private static final int BufferBytes = 16 * 1024;
+  private static final int MaxLineBytes = 16 * 1024, MaxHeadBytes = 64 * 1024;
+  private static final int MaxAttempts = 3;
+  private static final long SweepMs = 1000;
+
+  private static final int Head = 0, Body = 1, ChunkSize = 2, ChunkData = 3, ChunkEnd = 4, Trailer = 5, UntilClose = 6;
+
+  private static final class Exchange {
+    final String node;
+    final String host;
+    final int port;
+    final boolean head;
+    final byte[] request, body;
+    final int bodyLen;
+    final CompletableFuture<L4HttpResp> done = new CompletableFuture<>();
+    ByteBuffer[] out;
+    ByteBuffer pooled;
+    boolean started;
+    int attempts;
+
+    Exchange(URI uri, String method, byte[] request, byte[] body, int bodyLen) {
+      this.host = uri.getHost();
+      this.port = uri.getPort() != -1 ? uri.getPort() : 80;
+      this.node = host + ":" + port;
+      this.head = "HEAD".equals(method);
+      this.request = request;
+      this.body = body;
+      this.bodyLen = bodyLen;
+    }
+  }
+
+  private final class Node {
+    final String host;
+    final int port;
+    Conn[] conns;
+    final ArrayDeque<Exchange> backlog = new ArrayDeque<>();
+
+    Node(String host, int port) {
+      this.host = host;
+      this.port = port;
+      this.conns = new Conn[connections()];
+    }
+  }
+
+  private final class Conn {
+    final Node node;
+    final int slot;
+    final SocketChannel ch;
+    final SelectionKey key;
+    final ArrayDeque<Exchange> writing = new ArrayDeque<>(), reading = new ArrayDeque<>();
+    final long opened = System.nanoTime();
+    ByteBuffer in;
+    boolean connected, closed;
+    long lastRead = System.nanoTime();
+
+    int state = Head, status, headBytes;
+    long remaining, contentLength = -1;
+    boolean chunked, close;
+    byte[] line = new byte[256];
+    int lineLen;
+    boolean lineDone;
+    byte[] body;
+    int bodyLen;
+    boolean pooledBody;
+
+    Conn(Node node, int slot) throws IOException {
+      this.node = node;
+      this.slot = slot;
+      this.ch = SocketChannel.open();
+      try {
+        ch.configureBlocking(false);
+        ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        connected = ch.connect(new InetSocketAddress(node.host, node.port));
+        key = ch.register(selector, connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, this);
+      } catch (IOException | RuntimeException e) {
+        ch.close();
+        throw e;
+      }
+      in = L4Buffers.takeDirect(BufferBytes);
+    }
+
+    int load() {
+      return writing.size() + reading.size();
+    }
+
+    void interest() {
+      if (!closed && connected) {
+        key.interestOps(SelectionKey.OP_READ | (writing.isEmpty() ? 0 : SelectionKey.OP_WRITE));
+      }
+    }
+
+    void finishConnect() throws IOException {
+      connected = ch.finishConnect();
+      interest();
+    }
+
+    void write() throws IOException {
+      while (!writing.isEmpty()) {
+        Exchange x = writing.peek();
+        if (!x.started && x.done.isDone()) {
+          releaseOut(x); // aborted before any of it went out, so it is never sent
+          writing.poll();
+          continue;
+        }
+        if (x.out == null) {
+          encode(x);
+        }
+        x.started = true;
+        ch.write(x.out);
+        if (x.out[x.out.length - 1].hasRemaining()) {
+          break;
+        }
+        releaseOut(x);
+        writing.poll();
+        reading.add(x);
+      }
+      interest();
+    }
+
+    void read() throws IOException {
+      in.clear();
+      int n = ch.read(in);
+      if (n == -1) {
+        if (state == UntilClose) {
+          complete();
+        }
+        close(new EOFException(format("Connection to %s closed by the node", node.host)));
+        return;
+      }
+      lastRead = System.nanoTime();
+      in.flip();
+      while (in.hasRemaining() && !closed) {
+        switch (state) {
+          case Head:
+            if (readLine()) {
+              onHeadLine();
+            }
+            break;
+          case Body:
+          case ChunkData:
+          case UntilClose: {
+            int len = state == UntilClose ? in.remaining() : (int) Math.min(remaining, in.remaining());
+            append(len);
+            remaining -= len;
+            if (state == Body && remaining == 0) {
+              complete();
+            } else if (state == ChunkData && remaining == 0) {
+              state = ChunkEnd;
+            }
+            break;
+          }
+          case ChunkEnd:
+            if (readLine()) {
+              state = ChunkSize;
+            }
+            break;
+          case ChunkSize:
+            if (readLine()) {
+              String size = new String(line, 0, lineLen, StandardCharsets.US_ASCII);
+              int ext = size.indexOf(';');
+              remaining = Long.parseLong((ext == -1 ? size : size.substring(0, ext)).trim(), 16);
+              state = remaining == 0 ? Trailer : ChunkData;
+            }
+            break;
+          case Trailer:
+            if (readLine() && lineLen == 0) {
+              complete();
+            }
+            break;
+          default:
+            throw new IllegalStateException("Unknown state " + state);
+        }
+      }
+    }
+
+    /* Consumes input up to a line feed, leaving the line without its CRLF in line[0..lineLen). */
+    private boolean readLine() throws IOException {
+      if (lineDone) {
+        lineLen = 0;
+        lineDone = false;
+      }
+      while (in.hasRemaining()) {
+        byte b = in.get();
+        if (state == Head && ++headBytes > MaxHeadBytes) {
+          throw new IOException(format("Response headers past %d bytes", MaxHeadBytes));
+        }
+        if (b == '\n') {
+          if (lineLen > 0 && line[lineLen - 1] == '\r') {
+            lineLen--;
+          }
+          lineDone = true;
+          return true;
+        }
+        if (lineLen == line.length) {
+          if (lineLen >= MaxLineBytes) {
+            throw new IOException(format("Response line past %d bytes", MaxLineBytes));
+          }
+          line = Arrays.copyOf(line, lineLen * 2);
+        }
+        line[lineLen++] = b;
+      }
+      return false;
+    }
+
+    private void onHeadLine() throws IOException {
+      String text = new String(line, 0, lineLen, StandardCharsets.ISO_8859_1);
+      if (status == 0) {
+        if (!text.startsWith("HTTP/1.") || text.length() < 12) {
+          throw new IOException(format("Invalid status line [%s]", text));
+        }
+        status = Integer.parseInt(text.substring(9, 12));
+        close = text.startsWith("HTTP/1.0");
+        return;
+      }
+      if (!text.isEmpty()) {
+        int colon = text.indexOf(':');
+        if (colon > 0) {
+          String name = text.substring(0, colon).trim(), value = text.substring(colon + 1).trim();
+          if (name.equalsIgnoreCase("Content-Length")) {
+            contentLength = Long.parseLong(value);
+          } else if (name.equalsIgnoreCase("Transfer-Encoding")) {
+            chunked = value.toLowerCase().contains("chunked");
+          } else if (name.equalsIgnoreCase("Connection")) {
+            close = value.equalsIgnoreCase("close") || (close && !value.equalsIgnoreCase("keep-alive"));
+          }
+        }
+        return;
+      }
+      Exchange x = reading.peek();
+      if (x == null) {
+        throw new IOException(format("Unexpected response %d, no request in flight", status));
+      }
+      if (status >= 100 && status < 200) {
+        resetParser(); // interim response, the final one follows
+      } else if (x.head || status == 204 || status == 304) {
+        body = new byte[0];
+        complete();
+      } else if (chunked) {
+        body = L4Buffers.take(L4Buffers.MinBytes);
+        pooledBody = true;
+        state = ChunkSize;
+      } else if (contentLength >= 0) {
+        if (contentLength > Integer.MAX_VALUE - 8) {
+          throw new IOException(format("Response body of %d bytes is too large", contentLength));
+        }
+        body = new byte[(int) contentLength];
+        remaining = contentLength;
+        state = Body;
+        if (remaining == 0) {
+          complete();
+        }
+      } else {
+        body = L4Buffers.take(L4Buffers.MinBytes);
+        pooledBody = true;
+        close = true;
+        state = UntilClose;
+      }
+    }
+
+    private void append(int len) throws IOException {
+      if (bodyLen + len > body.length) {
+        if ((long) bodyLen + len > Integer.MAX_VALUE - 8) {
+          throw new IOException("Response body is too large");
+        }
+        body = L4Buffers.grow(body, bodyLen, bodyLen + len);
+      }
+      in.get(body, bodyLen, len);
+      bodyLen += len;
+    }
+
+    private void complete() {
+      Exchange x = reading.poll();
+      byte[] bytes = bodyLen == body.length && !pooledBody ? body : Arrays.copyOf(body, bodyLen);
+      if (pooledBody) {
+        L4Buffers.give(body);
+      }
+      x.done.complete(new L4HttpResp(status, bytes)); // ignored when the caller gave up
+      boolean last = close;
+      resetParser();
+      if (last) {
+        close(new EOFException(format("Connection to %s closed by the node", node.host)));
+      } else {
+        pump(node);
+      }
+    }
+
+    private void resetParser() {
+      state = Head;
+      status = headBytes = bodyLen = 0;
+      remaining = 0;
+      contentLength = -1;
+      chunked = close = pooledBody = false;
+      body = null;
+    }
+
+    void close(Exception cause) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      key.cancel();
+      try {
+        ch.close();
+      } catch (IOException e) {
+        L4Log.debug("{} - unable to close {} - {}", L4Nio.this, node.host, e.toString());
+      }
+      L4Buffers.give(in);
+      in = null;
+      if (pooledBody) {
+        L4Buffers.give(body);
+        body = null;
+      }
+      if (node.conns[slot] == this) {
+        node.conns[slot] = null;
+      }
+      for (Exchange x : reading) {
+        x.done.completeExceptionally(cause);
+      }
+      reading.clear();
+      for (Iterator<Exchange> it = writing.descendingIterator(); it.hasNext(); ) {
+        Exchange x = it.next();
+        releaseOut(x);
+        if (x.started || ++x.attempts >= MaxAttempts) {
+          x.done.completeExceptionally(cause);
+        } else {
+          node.backlog.addFirst(x);
+        }
+      }
+      writing.clear();
+      pump(node);
+    }
+
+    /* Gives up on connects and stalled pipelines once every request waiting on them is gone. */
+    void sweep(long now, long timeoutNanos) {
+      if (!connected && now - opened > timeoutNanos) {
+        close(new ConnectException(format("Connect to %s:%d timed out", node.host, node.port)));
+      } else if (!reading.isEmpty() && reading.peek().done.isDone() && now - lastRead > timeoutNanos) {
+        close(new SocketTimeoutException(format("No response from %s:%d", node.host, node.port)));
+      }
+    }
+  }
+
+  private static volatile L4Nio instance;
+
+  private final Selector selector;
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private final Map<String, Node> nodes = new HashMap<>();
+  private long nextSweep;
+
+  private L4Nio() throws IOException {
+    this.selector = Selector.open();
+    Thread t = new Thread(this, "l4-nio");
+    t.setDaemon(true);
+    t.start();
+  }
+
+  static L4Nio get() {
+    L4Nio t = instance;
+    if (t == null) {
+      synchronized (L4Nio.class) {
+        t = instance;
+        if (t == null) {
+          try {
+            instance = t = new L4Nio();
+          } catch (IOException e) {
+            throw new IllegalStateException("Unable to open NIO selector", e);
+          }
+        }
+      }
+    }
+    return t;
+  }
+
+  private void encode(Exchange x) {
+    int size = x.request.length + (x.body != null ? x.bodyLen : 0);
+    if (size <= L4Buffers.MaxBytes) {
+      x.pooled = L4Buffers.takeDirect(size);
+      x.pooled.put(x.request);
+      if (x.body != null) {
+        x.pooled.put(x.body, 0, x.bodyLen);
+      }
+      x.pooled.flip();
+      x.out = new ByteBuffer[] {x.pooled};
+    } else if (x.body == null) {
+      x.out = new ByteBuffer[] {ByteBuffer.wrap(x.request)};
+    } else {
+      x.out = new ByteBuffer[] {ByteBuffer.wrap(x.request), ByteBuffer.wrap(x.body, 0, x.bodyLen)};
+    }
+  }
+
+  private void releaseOut(Exchange x) {
+    L4Buffers.give(x.pooled);
+    x.pooled = null;
+    x.out = null;
+  }
+
+  private void dispatch(Exchange x) {
+    Node node = nodes.computeIfAbsent(x.node, k -> new Node(x.host, x.port));
+    node.backlog.add(x);
+    pump(node);
+  }
+
+  private static int connections() {
+    return Math.max(1, L4Options.nioConnections);
+  }
+
+  /*
+   * Moves queued requests to the least loaded connection with room, opening one while a slot is
+   * free. Only the first nioConnections slots take new requests, the others finish what they have.
+   */
+  private void pump(Node node) {
+    int n = connections();
+    if (node.conns.length < n) {
+      node.conns = Arrays.copyOf(node.conns, n);
+    }
+    while (!node.backlog.isEmpty()) {
+      if (node.backlog.peek().done.isDone()) {
+        node.backlog.poll(); // aborted before it was sent
+        continue;
+      }
+      Conn best = null;
+      int slot = -1;
+      for (int i = 0; i < n; i++) {
+        Conn c = node.conns[i];
+        if (c == null) {
+          slot = slot == -1 ? i : slot;
+        } else if (c.load() < Math.max(1, L4Options.nioPipeline) && (best == null || c.load() < best.load())) {
+          best = c;
+        }
+      }
+      if ((best == null || best.load() > 0) && slot != -1) {
+        try {
+          best = node.conns[slot] = new Conn(node, slot);
+        } catch (IOException | RuntimeException e) {
+          if (best == null) {
+            node.backlog.poll().done.completeExceptionally(e);
+            continue;
+          }
+        }
+      }
+      if (best == null) {
+        return; // every connection is full, the next response makes room
+      }
+      best.writing.add(node.backlog.poll());
+      best.interest();
+    }
+  }
+
+  @Override public void run() {
+    while (true) {
+      try {
+        selector.select(SweepMs);
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+          task.run();
+        }
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey k = keys.next();
+          keys.remove();
+          Conn c = (Conn) k.attachment();
+          try {
+            if (k.isValid() && k.isConnectable()) {
+              c.finishConnect();
+            }
+            if (k.isValid() && k.isWritable()) {
+              c.write();
+            }
+            if (k.isValid() && k.isReadable()) {
+              c.read();
+            }
+          } catch (Exception e) {
+            c.close(e);
+          }
+        }
+        long now = System.nanoTime();
+        if (now - nextSweep > 0) {
+          nextSweep = now + TimeUnit.MILLISECONDS.toNanos(SweepMs);
+          sweep(now);
+        }
+      } catch (Throwable e) {
+        L4Log.warn("{} - selector loop error - {}", this, e.toString());
+      }
+    }
+  }
+
+  private void sweep(long now) {
+    if (L4Options.timeoutSec <= 0) {
+      return; // no timeouts, as with HttpURLConnection connects and reads wait on the socket
+    }
+    long timeoutNanos = TimeUnit.SECONDS.toNanos(L4Options.timeoutSec);
+    for (Node node : nodes.values()) {
+      for (Conn c : node.conns) {
+        if (c != null) {
+          c.sweep(now, timeoutNanos);
+        }
+      }
+    }
+  }
+
+  private static byte[] requestHead(String method, URI uri, String authHeader, byte[] body, int bodyLen) {
+    StringBuilder sb = new StringBuilder(256)
+      .append(method).append(' ').append(uri.getRawPath().isEmpty() ? "/" : uri.getRawPath());
+    if (uri.getRawQuery() != null) {
+      sb.append('?').append(uri.getRawQuery());
+    }
+    sb.append(" HTTP/1.1\r\nHost: ").append(uri.getRawAuthority()).append("\r\n");
+    if (body != null) {
+      sb.append("Content-Type: application/json\r\nContent-Length: ").append(bodyLen).append("\r\n");
+    }
+    if (authHeader != null) {
+      sb.append("Authorization: ").append(authHeader).append("\r\n");
+    }
+    return sb.append("\r\n").toString().getBytes(StandardCharsets.ISO_8859_1);
+  }
+
+  @Override L4HttpResp send(String method, String url, String authHeader, byte[] body, int bodyLen, L4Call call) throws Exception {
+    URI uri = URI.create(url);
+    Exchange x = new Exchange(uri, method, requestHead(method, uri, authHeader, body, bodyLen), body, bodyLen);
+    if (call != null) {
+      call.attach(() -> x.done.completeExceptionally(new IOException("Request aborted")));
+    }
+    tasks.add(() -> dispatch(x));
+    selector.wakeup();
+    try {
+      if ((call == null || !call.hasTimeout()) && L4Options.timeoutSec > 0) {
+        return x.done.get(L4Options.timeoutSec, TimeUnit.SECONDS); // a call's own deadline is enforced by the call
+      }
+      return x.done.get();
+    } catch (TimeoutException e) {
+      x.done.completeExceptionally(e);
+      throw new SocketTimeoutException(format("No response from %s after %ds", x.node, L4Options.timeoutSec));
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+    }
+  }
+
+  @Override public String toString() {
+    return "l4nio";
+  }
+
+}
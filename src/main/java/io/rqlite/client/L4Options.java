@@ -1,5 +1,7 @@
 package io.rqlite.client;
 
+import io.rqlite.jdbc.L4Log;
+
 import java.util.Properties;
 
 import static java.lang.String.format;
@@ -11,11 +13,21 @@ public class L4Options {
     kBaseUrl = "baseUrl", kTimeoutSec = "timeoutSec",
     kQueue = "queue", kWait = "wait", kLevel = "level", kLinearizableTimeoutSec = "linearizableTimeoutSec",
     kFreshnessSec = "freshnessSec", kFreshnessStrict = "freshnessStrict",
-    kUser = "user", kPassword = "password";
+    kUser = "user", kPassword = "password", kLobSpillBytes = "lobSpillBytes", kLobSpillDir = "lobSpillDir",
+    kMetrics = "metrics", kSlowQueryMs = "slowQueryMs",
+    kTxSpillBytes = "txSpillBytes", kReadYourWrites = "readYourWrites", kJdkHttp = "jdkHttp",
+    kHttp2 = "http2", kHttp2Connections = "http2Connections",
+    kNio = "nio", kNioConnections = "nioConnections", kNioPipeline = "nioPipeline";
 
   public static String  baseUrl, user, password, cacert;
 
   public static boolean insecure;
+  public static boolean jdkHttp = true; // java.net.http.HttpClient transport on Java 21+, false keeps HttpURLConnection
+  public static boolean http2 = false; // multiplex requests over HTTP/2, needs the Java 21+ transport
+  public static int     http2Connections = 4; // HTTP/2 connections per node
+  public static boolean nio = false; // pipelined HTTP/1.1 over a selector thread for http:// nodes, see L4Nio
+  public static int     nioConnections = 4; // keep-alive connections per node for the NIO transport
+  public static int     nioPipeline = 16; // requests in flight per NIO connection, 1 disables pipelining
   public static boolean queue = false;
   public static boolean wait = true;
 
@@ -25,6 +37,14 @@ public class L4Options {
 
   public static long    freshnessSec = 5;
   public static boolean freshnessStrict = false;
+  public static boolean readYourWrites = false; // none level reads wait for this client's last write, see L4Client#query
+
+  public static long    lobSpillBytes = 32 * 1024 * 1024; // LOBs past this size move to a temp file, <= 0 disables
+  public static String  lobSpillDir; // directory for LOB temp files, null uses java.io.tmpdir
+  public static long    txSpillBytes = 16 * 1024 * 1024; // buffered transactions past this size move to a temp file, <= 0 disables
+
+  public static L4Metrics metrics = L4Metrics.None; // metrics=true installs L4MetricsRegistry.global()
+  public static long      slowQueryMs = -1; // requests at or past this are logged by L4SlowLog, < 0 disables
 
   private static String kv(String key, Object value) {
     return String.format("%s=%s", key, value.toString());
@@ -51,16 +71,38 @@ public class L4Options {
   }
 
   public static String queryParams(boolean transaction) {
+    return queryParams(transaction, queue, wait);
+  }
+
+  /** Sends the call's own deadline as the request timeout, and its level, when it has them. */
+  public static String queryParams(boolean transaction, L4Call call) {
+    return queryParams(transaction, call, call != null && call.level != null ? call.level : level);
+  }
+
+  public static String queryParams(boolean transaction, L4Call call, L4Level level) {
+    return queryParams(transaction, queue, wait, call, level);
+  }
+
+  public static String queryParams(boolean transaction, boolean queue, boolean wait) {
+    return queryParams(transaction, queue, wait, null, level);
+  }
+
+  /** The call, when not null, may override the timeout, freshness and strict freshness. */
+  public static String queryParams(boolean transaction, boolean queue, boolean wait, L4Call call, L4Level level) {
+    long timeoutMs = call != null && call.hasTimeout() ? call.timeoutMs : -1;
+    String freshness = call != null && call.freshness != null ? call.freshness : format("%ds", freshnessSec);
+    boolean freshnessStrict = call != null && call.freshnessStrict != null ? call.freshnessStrict : L4Options.freshnessStrict;
     String[] pairs = new String[] {
       queue ? kv("queue", true) : null,
       transaction ? kv("transaction", true) : null,
       kv("timings", true),
-      kv("timeout", format("%ds", timeoutSec)),
+      kv("timeout", timeoutMs > 0 ? format("%dms", timeoutMs) : format("%ds", timeoutSec)),
       kv("wait", wait),
       kv("level", level),
       level == L4Level.linearizable ? kv("linearizable_timeout", format("%ds", linearizableTimeoutSec)) : null,
-      kv("freshness", format("%ds", freshnessSec)),
-      kv("freshness_strict", freshnessStrict)
+      kv("freshness", freshness),
+      kv("freshness_strict", freshnessStrict),
+      readYourWrites ? kv("raft_index", true) : null
     };
     String params = String.join("&", filterNulls(pairs));
     return String.format("?%s", params);
@@ -96,6 +138,9 @@ public class L4Options {
       if (p.containsKey(kFreshnessStrict)) {
         L4Options.freshnessStrict = Boolean.parseBoolean(get(p, kFreshnessStrict));
       }
+      if (p.containsKey(kReadYourWrites)) {
+        L4Options.readYourWrites = Boolean.parseBoolean(get(p, kReadYourWrites));
+      }
       if (p.containsKey(kUser)) {
         L4Options.user = get(p, kUser);
       }
@@ -105,6 +150,42 @@ public class L4Options {
       if (p.containsKey(kCaCert)) {
         L4Options.cacert = get(p, kCaCert);
       }
+      if (p.containsKey(kLobSpillBytes)) {
+        L4Options.lobSpillBytes = Long.parseLong(get(p, kLobSpillBytes));
+      }
+      if (p.containsKey(kLobSpillDir)) {
+        L4Options.lobSpillDir = get(p, kLobSpillDir);
+      }
+      if (p.containsKey(kTxSpillBytes)) {
+        L4Options.txSpillBytes = Long.parseLong(get(p, kTxSpillBytes));
+      }
+      if (p.containsKey(kMetrics)) {
+        L4Options.metrics = Boolean.parseBoolean(get(p, kMetrics)) ? L4MetricsRegistry.global() : L4Metrics.None;
+      }
+      if (p.containsKey(kSlowQueryMs)) {
+        L4Options.slowQueryMs = Long.parseLong(get(p, kSlowQueryMs));
+      }
+      if (p.containsKey(kJdkHttp)) {
+        L4Options.jdkHttp = Boolean.parseBoolean(get(p, kJdkHttp));
+      }
+      if (p.containsKey(kHttp2)) {
+        L4Options.http2 = Boolean.parseBoolean(get(p, kHttp2));
+      }
+      if (p.containsKey(kHttp2Connections)) {
+        L4Options.http2Connections = Integer.parseInt(get(p, kHttp2Connections));
+      }
+      if (p.containsKey(kNio)) {
+        L4Options.nio = Boolean.parseBoolean(get(p, kNio));
+      }
+      if (p.containsKey(kNioConnections)) {
+        L4Options.nioConnections = Integer.parseInt(get(p, kNioConnections));
+      }
+      if (p.containsKey(kNioPipeline)) {
+        L4Options.nioPipeline = Integer.parseInt(get(p, kNioPipeline));
+      }
+      if (p.containsKey(kHttp2) && L4Options.http2 && (!L4Options.jdkHttp || !L4Transport.supportsHttp2())) {
+        L4Log.warn("HTTP/2 needs Java 21+ with jdkHttp=true, requests stay on HTTP/1.1");
+      }
       if (p.containsKey(kInsecure)) {
         L4Options.insecure = Boolean.parseBoolean(get(p, kInsecure));
       }
@@ -0,0 +1,280 @@
+package io.rqlite.client;
+
+import io.rqlite.json.Json;
+import io.rqlite.json.JsonArray;
+import io.rqlite.json.JsonHandler;
+import io.rqlite.json.JsonObject;
+import io.rqlite.json.JsonValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds an {@link L4Response} straight from parser events, following rqlite's response shape:
+ * <pre>
+ * {"results": [{"columns": [..], "types": [..], "values": [[..], ..],
+ *               "last_insert_id": n, "rows_affected": n, "error": ".."}, ..], "time": n}
+ * </pre>
+ * Cells go into the row lists as text, the same way {@link L4Json#toValuesList} renders them, so
+ * no JsonValue is allocated per cell. Unknown members are skipped; the rare non-scalar cell is
+ * built as a small JSON tree and rendered to text.
+ */
+class L4RespHandler extends JsonHandler<Object, Object> {
+
+  /** What the next value in the input is going to be. */
+  private enum Slot { ROOT, RESULTS, RESULT, COLUMNS, TYPES, VALUES, ROW, CELL, DOM, NAME, ANY }
+
+  /** Array/object handlers for the parts of the response we care about. */
+  private enum Ctx { ROOT, RESULTS, RESULT, COLUMNS, TYPES, VALUES, ROW, SKIP }
+
+  private enum Kind { NULL, BOOLEAN, STRING, NUMBER }
+
+  private final L4Response response = new L4Response();
+
+  private Slot slot = Slot.ROOT;
+  private L4Result result;
+  private List<String> row;
+  private boolean resultError;
+
+  private Kind kind;
+  private String text;
+  private long number;
+  private boolean integral;
+
+  private int domDepth;
+  private JsonValue dom;
+
+  L4RespHandler(int statusCode) {
+    response.statusCode = statusCode;
+  }
+
+  L4Response getResponse() {
+    if (response.results == null) {
+      response.results = new ArrayList<L4Result>();
+    }
+    return response;
+  }
+
+  private Object startDom(JsonValue container) {
+    if (slot == Slot.CELL || slot == Slot.DOM) {
+      domDepth++;
+      return container;
+    }
+    return Ctx.SKIP;
+  }
+
+  private void endDom(JsonValue container) {
+    if (--domDepth == 0) {
+      scalar(Kind.STRING, container.toString());
+    } else {
+      dom = container;
+    }
+  }
+
+  private void scalar(Kind k, String t) {
+    kind = k;
+    text = t;
+    integral = false;
+  }
+
+  private long longValue() {
+    return integral ? number : Long.parseLong(text);
+  }
+
+  private static String asString(Kind kind, String text) {
+    if (kind != Kind.STRING) {
+      throw new UnsupportedOperationException("Not a string: " + text);
+    }
+    return text;
+  }
+
+  @Override public Object startArray() {
+    switch (slot) {
+      case RESULTS:
+        response.results = new ArrayList<L4Result>();
+        return Ctx.RESULTS;
+      case COLUMNS:
+        result.columns = new ArrayList<String>();
+        return Ctx.COLUMNS;
+      case TYPES:
+        result.types = new ArrayList<String>();
+        return Ctx.TYPES;
+      case VALUES:
+        result.values = new ArrayList<List<String>>();
+        return Ctx.VALUES;
+      case ROW:
+        row = new ArrayList<String>();
+        return Ctx.ROW;
+      default:
+        return startDom(Json.array());
+    }
+  }
+
+  @Override public void startArrayValue(Object array) {
+    if (array instanceof JsonArray) {
+      slot = Slot.DOM;
+      return;
+    }
+    switch ((Ctx) array) {
+      case RESULTS: slot = Slot.RESULT; break;
+      case COLUMNS:
+      case TYPES:   slot = Slot.NAME;   break;
+      case VALUES:  slot = Slot.ROW;    break;
+      case ROW:     slot = Slot.CELL;   break;
+      default:      slot = Slot.ANY;
+    }
+  }
+
+  @Override public void endArrayValue(Object array) {
+    if (array instanceof JsonArray) {
+      ((JsonArray) array).add(dom);
+      return;
+    }
+    switch ((Ctx) array) {
+      case COLUMNS: result.columns.add(asString(kind, text)); break;
+      case TYPES:   result.types.add(asString(kind, text));   break;
+      case ROW:     row.add(text);                             break;
+      default:
+    }
+  }
+
+  @Override public void endArray(Object array) {
+    if (array instanceof JsonArray) {
+      endDom((JsonArray) array);
+    } else if (array == Ctx.ROW) {
+      result.values.add(row);
+      row = null;
+    }
+  }
+
+  @Override public Object startObject() {
+    switch (slot) {
+      case ROOT:
+        return Ctx.ROOT;
+      case RESULT:
+        result = new L4Result();
+        resultError = false;
+        return Ctx.RESULT;
+      default:
+        return startDom(Json.object());
+    }
+  }
+
+  @Override public void startObjectValue(Object object, String name) {
+    if (object instanceof JsonObject) {
+      slot = Slot.DOM;
+    } else if (object == Ctx.ROOT) {
+      slot = "results".equals(name) ? Slot.RESULTS : Slot.ANY;
+    } else if (object == Ctx.RESULT) {
+      switch (name) {
+        case "columns": slot = Slot.COLUMNS; break;
+        case "types":   slot = Slot.TYPES;   break;
+        case "values":  slot = Slot.VALUES;  break;
+        default:        slot = Slot.ANY;
+      }
+    } else {
+      slot = Slot.ANY;
+    }
+  }
+
+  @Override public void endObjectValue(Object object, String name) {
+    if (object instanceof JsonObject) {
+      ((JsonObject) object).add(name, dom);
+    } else if (object == Ctx.ROOT) {
+      if ("time".equals(name)) {
+        response.time = integral ? (float) number : Float.parseFloat(text);
+      } else if ("sequence_number".equals(name)) {
+        response.sequenceNumber = longValue();
+      } else if ("raft_index".equals(name)) {
+        response.raftIndex = longValue();
+      }
+    } else if (object == Ctx.RESULT) {
+      switch (name) {
+        case "error":
+          resultError = true;
+          result.error = kind == Kind.STRING ? text : "Unknown error";
+          break;
+        case "last_insert_id":
+          result.lastInsertId = longValue();
+          break;
+        case "rows_affected":
+          result.rowsAffected = (int) longValue();
+          break;
+        case "time":
+          result.time = integral ? (float) number : Float.parseFloat(text);
+          break;
+        default:
+      }
+    }
+  }
+
+  @Override public void endObject(Object object) {
+    if (object instanceof JsonObject) {
+      endDom((JsonObject) object);
+    } else if (object == Ctx.RESULT) {
+      if (resultError) {
+        result.columns = null;
+        result.types = null;
+        result.values = null;
+        result.lastInsertId = null;
+        result.rowsAffected = null;
+      } else {
+        if (result.columns == null) { result.columns = new ArrayList<String>(); }
+        if (result.types == null) { result.types = new ArrayList<String>(); }
+        if (result.values == null) { result.values = new ArrayList<List<String>>(); }
+        if (result.lastInsertId == null) { result.lastInsertId = 0L; }
+        if (result.rowsAffected == null) { result.rowsAffected = 0; }
+      }
+      response.results.add(result);
+      result = null;
+    }
+  }
+
+  @Override public void endNull() {
+    if (domDepth > 0) {
+      dom = Json.NULL;
+    } else {
+      scalar(Kind.NULL, "null");
+    }
+  }
+
+  @Override public void endBoolean(boolean value) {
+    if (domDepth > 0) {
+      dom = Json.value(value);
+    } else {
+      scalar(Kind.BOOLEAN, value ? "true" : "false");
+    }
+  }
+
+  /* Column and type names repeat across responses, share them instead of reallocating. */
+  @Override public boolean isSymbol() {
+    return slot == Slot.NAME;
+  }
+
+  @Override public void endString(String string) {
+    if (domDepth > 0) {
+      dom = Json.value(string);
+    } else {
+      scalar(Kind.STRING, string);
+    }
+  }
+
+  @Override public void endNumber(String string) {
+    if (domDepth > 0) {
+      dom = Json.parse(string);
+    } else {
+      scalar(Kind.NUMBER, string);
+    }
+  }
+
+  @Override public void endNumber(long value) {
+    if (domDepth > 0) {
+      dom = Json.value(value);
+    } else {
+      scalar(Kind.NUMBER, Long.toString(value));
+      number = value;
+      integral = true;
+    }
+  }
+
+}
@@ -2,6 +2,7 @@ package io.rqlite.client;
 
 import io.rqlite.json.JsonObject;
 import io.rqlite.json.JsonArray;
+import io.rqlite.json.JsonParser;
 import io.rqlite.json.JsonValue;
 import java.io.PrintStream;
 import java.util.ArrayList;
@@ -15,6 +16,8 @@ public class L4Response {
 
   public List<L4Result> results;
   public Float          time;
+  public Long           sequenceNumber; // queued writes only
+  public Long           raftIndex; // writes, with L4Options.readYourWrites
   public int            statusCode;
 
   public void print(PrintStream out) {
@@ -44,9 +47,18 @@ public class L4Response {
       r.results = new ArrayList<L4Result>();
     }
     r.time = obj.get("time") != null ? obj.getFloat("time", -1) : null;
+    r.sequenceNumber = obj.get("sequence_number") != null ? obj.getLong("sequence_number", -1) : null;
+    r.raftIndex = obj.get("raft_index") != null ? obj.getLong("raft_index", -1) : null;
     return r;
   }
 
+  /** Parses a UTF-8 response body straight into results, without building a JSON tree first. */
+  public static L4Response response(int statusCode, byte[] body) {
+    L4RespHandler handler = new L4RespHandler(statusCode);
+    new JsonParser(handler).parse(body);
+    return handler.getResponse();
+  }
+
   public static L4Response deferred(L4Statement[] statements) {
     L4Response r = new L4Response();
     r.statements = Objects.requireNonNull(statements);
@@ -15,6 +15,9 @@ public class L4Result {
   public Long lastInsertId;
   public Integer rowsAffected;
   public String error;
+  public Float time;
+
+  L4Result() {}
 
   public L4Result(JsonObject json) {
     if (json.get("error") != null) {
@@ -26,6 +29,7 @@ public class L4Result {
       this.lastInsertId = json.get("last_insert_id") != null ? json.getLong("last_insert_id", 0) : 0;
       this.rowsAffected = json.get("rows_affected") != null ? json.getInt("rows_affected",0) : 0;
     }
+    this.time = json.get("time") != null ? json.getFloat("time", 0) : null;
   }
 
   public int indexOf(String column) {
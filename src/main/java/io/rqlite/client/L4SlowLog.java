@@ -0,0 +1,137 @@
+package io.rqlite.client;
+
+import io.rqlite.jdbc.L4Log;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Slow query detector, enabled with {@link L4Options#slowQueryMs} &gt;= 0. Every execute/query
+ * request is keyed by the {@link L4Statement#fingerprint} of its statements and counted in a
+ * bounded table; requests slower than the threshold are logged through {@link L4Log#warn} with
+ * rqlite's server side time, so slow statements show up without full request tracing.
+ */
+public final class L4SlowLog {
+
+  public static final int MaxFingerprints = 512;
+  private static final int MaxCachedSql = 2048;
+
+  public static final class Stats {
+    public final String fingerprint;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder slow = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder serverNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+    Stats(String fingerprint) {
+      this.fingerprint = fingerprint;
+    }
+
+    public long count() { return count.sum(); }
+    public long slow() { return slow.sum(); }
+    public long totalNanos() { return totalNanos.sum(); }
+    public long serverNanos() { return serverNanos.sum(); }
+    public long maxNanos() { return maxNanos.get(); }
+
+    @Override public String toString() {
+      long n = count();
+      return String.format(
+        "[n: %d, slow: %d, total: %.3fms, avg: %.3fms, max: %.3fms, server: %.3fms] %s",
+        n, slow(), totalNanos() / 1e6, n == 0 ? 0 : totalNanos() / 1e6 / n,
+        maxNanos() / 1e6, serverNanos() / 1e6, fingerprint
+      );
+    }
+  }
+
+  private static final Map<String, Stats> stats = new ConcurrentHashMap<>();
+  private static final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+
+  private L4SlowLog() {}
+
+  public static boolean isEnabled() {
+    return L4Options.slowQueryMs >= 0;
+  }
+
+  /* Prepared statements send the same SQL over and over, so fingerprints are cached by SQL text. */
+  private static String fingerprintOf(String sql) {
+    String fp = fingerprints.get(sql);
+    if (fp == null) {
+      if (fingerprints.size() >= MaxCachedSql) {
+        fingerprints.clear();
+      }
+      fp = L4Statement.fingerprint(sql);
+      fingerprints.put(sql, fp);
+    }
+    return fp;
+  }
+
+  static String fingerprintOf(L4Statement[] statements) {
+    if (statements.length == 1) {
+      return fingerprintOf(statements[0].sql);
+    }
+    Set<String> distinct = new LinkedHashSet<>();
+    for (L4Statement st : statements) {
+      distinct.add(fingerprintOf(st.sql));
+    }
+    return String.join("; ", distinct);
+  }
+
+  /* Makes room by dropping the entry that accounts for the least total time. */
+  private static void evict() {
+    Stats min = null;
+    for (Stats s : stats.values()) {
+      if (min == null || s.totalNanos() < min.totalNanos()) {
+        min = s;
+      }
+    }
+    if (min != null) {
+      stats.remove(min.fingerprint, min);
+    }
+  }
+
+  static void record(Object source, String endpoint, L4Statement[] statements, int count, L4Response response, long latencyNanos) {
+    if (statements.length == 0) {
+      return;
+    }
+    String fp = fingerprintOf(statements);
+    Stats s = stats.get(fp);
+    if (s == null) {
+      if (stats.size() >= MaxFingerprints) {
+        evict();
+      }
+      s = stats.computeIfAbsent(fp, Stats::new);
+    }
+    long serverNanos = response.time != null ? (long) (response.time * 1_000_000_000d) : 0;
+    s.count.increment();
+    s.totalNanos.add(latencyNanos);
+    s.serverNanos.add(serverNanos);
+    s.maxNanos.accumulate(latencyNanos);
+    if (latencyNanos >= L4Options.slowQueryMs * 1_000_000L) {
+      s.slow.increment();
+      L4Log.warn("{} - slow {} {}ms (server {}ms, {} statements): {}",
+        source, endpoint, latencyNanos / 1_000_000, serverNanos / 1_000_000, count, fp
+      );
+    }
+  }
+
+  /** Tracked fingerprints, most total time first. */
+  public static List<Stats> top(int n) {
+    List<Stats> all = new ArrayList<>(stats.values());
+    all.sort(Comparator.comparingLong(Stats::totalNanos).reversed());
+    return all.size() > n ? all.subList(0, n) : all;
+  }
+
+  public static void reset() {
+    stats.clear();
+    fingerprints.clear();
+  }
+
+}
@@ -3,6 +3,7 @@ package io.rqlite.client;
 import io.rqlite.json.Json;
 import io.rqlite.json.JsonArray;
 import io.rqlite.json.JsonObject;
+import io.rqlite.json.JsonStream;
 import io.rqlite.json.JsonValue;
 
 import java.util.*;
@@ -72,6 +73,27 @@ public class L4Statement {
     return this;
   }
 
+  public boolean hasStreams() {
+    for (Object p : positionalParams) {
+      if (L4Json.isStream(p)) {
+        return true;
+      }
+    }
+    for (Object p : namedParams.values()) {
+      if (L4Json.isStream(p)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Reads stream parameters into memory, so the statement no longer depends on the caller's streams. */
+  public L4Statement detach() {
+    positionalParams.replaceAll(p -> L4Json.isStream(p) ? ((JsonStream) p).detach() : p);
+    namedParams.replaceAll((k, p) -> L4Json.isStream(p) ? ((JsonStream) p).detach() : p);
+    return this;
+  }
+
   public JsonArray build() {
     if (sql == null || sql.trim().isEmpty()) {
       throw new IllegalStateException("SQL statement cannot be null or empty");
@@ -100,6 +122,123 @@ public class L4Statement {
     return smtList;
   }
 
+  public static boolean hasStreams(L4Statement... statements) {
+    for (L4Statement smt : statements) {
+      if (smt.hasStreams()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Normalizes SQL text so that statements differing only in literal values, whitespace, comments
+   * or keyword case share a fingerprint. String, number and blob literals become <code>?</code>,
+   * lists of placeholders such as <code>IN (?, ?, ?)</code> collapse to <code>(?+)</code>, and
+   * whitespace is kept only where it separates two words. Quoted identifiers are kept as written.
+   */
+  public static String fingerprint(String sql) {
+    if (sql == null) {
+      return null;
+    }
+    StringBuilder sb = new StringBuilder(Math.min(sql.length(), 256));
+    int n = sql.length();
+    int i = 0;
+    boolean gap = false;
+    while (i < n) {
+      char c = sql.charAt(i);
+      if (Character.isWhitespace(c)) {
+        gap = true;
+        i++;
+        continue;
+      }
+      if (c == '-' && i + 1 < n && sql.charAt(i + 1) == '-') {
+        while (i < n && sql.charAt(i) != '\n') { i++; }
+        gap = true;
+        continue;
+      }
+      if (c == '/' && i + 1 < n && sql.charAt(i + 1) == '*') {
+        int end = sql.indexOf("*/", i + 2);
+        i = end == -1 ? n : end + 2;
+        gap = true;
+        continue;
+      }
+      boolean afterWord = !gap && sb.length() > 0 && isIdent(sb.charAt(sb.length() - 1));
+      if (gap && sb.length() > 0 && (isWord(sb.charAt(sb.length() - 1)) || sb.charAt(sb.length() - 1) == ')') && isWord(c)) {
+        sb.append(' ');
+      }
+      gap = false;
+      if (c == '\'') {
+        i = skipQuoted(sql, i, '\'');
+        placeholder(sb);
+      } else if ((c == 'x' || c == 'X') && i + 1 < n && sql.charAt(i + 1) == '\'' && !afterWord) {
+        i = skipQuoted(sql, i + 1, '\'');
+        placeholder(sb);
+      } else if (c == '"' || c == '`' || c == '[') {
+        int end = skipQuoted(sql, i, c == '[' ? ']' : c);
+        sb.append(sql, i, end);
+        i = end;
+      } else if ((Character.isDigit(c) || c == '.' && i + 1 < n && Character.isDigit(sql.charAt(i + 1))) && !afterWord) {
+        i++;
+        while (i < n) {
+          char d = sql.charAt(i);
+          boolean exp = (d == '+' || d == '-') && (sql.charAt(i - 1) == 'e' || sql.charAt(i - 1) == 'E');
+          if (!Character.isLetterOrDigit(d) && d != '.' && !exp) {
+            break;
+          }
+          i++;
+        }
+        placeholder(sb);
+      } else if (c == '?') {
+        i++;
+        while (i < n && Character.isDigit(sql.charAt(i))) { i++; }
+        placeholder(sb);
+      } else {
+        sb.append(c >= 'A' && c <= 'Z' ? (char) (c + 32) : c);
+        i++;
+      }
+    }
+    return sb.toString();
+  }
+
+  static int skipQuoted(String sql, int i, char close) {
+    int n = sql.length();
+    i++;
+    while (i < n) {
+      if (sql.charAt(i++) == close) {
+        if (i < n && sql.charAt(i) == close && close != ']') {
+          i++; // doubled quote
+        } else {
+          return i;
+        }
+      }
+    }
+    return n;
+  }
+
+  private static boolean isIdent(char c) {
+    return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+  }
+
+  private static boolean isWord(char c) {
+    return isIdent(c) || c == '?' || c == '*' || c == ':' || c == '@' || c == '"' || c == '`' || c == '[' || c == ']' || c == '\'';
+  }
+
+  /* Appends a placeholder, folding "?,?" runs into a single "?+". */
+  private static void placeholder(StringBuilder sb) {
+    int k = sb.length();
+    if (k >= 2 && sb.charAt(k - 1) == ',' && sb.charAt(k - 2) == '?') {
+      sb.setLength(k - 1);
+      sb.append('+');
+      return;
+    }
+    if (k >= 3 && sb.charAt(k - 1) == ',' && sb.charAt(k - 2) == '+' && sb.charAt(k - 3) == '?') {
+      sb.setLength(k - 1);
+      return;
+    }
+    sb.append('?');
+  }
+
   @Override public String toString() {
     return String.format("[%s]", sql);
   }
@@ -0,0 +1,28 @@
+package io.rqlite.client;
+
+/**
+ * Sends requests whose body is already in memory and whose response is read in full, which covers
+ * execute and query calls. This Java 8 version has no transport of its own, so {@link L4Client}
+ * uses <code>HttpURLConnection</code>. Java 21+ loads the <code>java.net.http.HttpClient</code>
+ * version from <code>META-INF/versions/21</code> instead, see <code>src/main/java21</code>.
+ */
+abstract class L4Transport {
+
+  /** HTTP/2 needs the Java 21+ transport, <code>HttpURLConnection</code> only speaks HTTP/1.1. */
+  static boolean supportsHttp2() {
+    return false;
+  }
+
+  /** @return the transport for this runtime, or null to use <code>HttpURLConnection</code>. */
+  static L4Transport get() {
+    return null;
+  }
+
+  /**
+   * @param authHeader <code>Authorization</code> header value, may be null.
+   * @param body JSON request body in <code>body[0..bodyLen)</code>, null when there is none.
+   * @param call binds the exchange for deadlines and cancellation, may be null.
+   */
+  abstract L4HttpResp send(String method, String url, String authHeader, byte[] body, int bodyLen, L4Call call) throws Exception;
+
+}
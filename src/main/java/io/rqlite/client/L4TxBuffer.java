@@ -0,0 +1,214 @@
+package io.rqlite.client;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.rqlite.json.JsonArray;
+
+import static java.lang.String.format;
+
+/**
+ * Deferred statements of an open transaction, kept as the JSON body of the commit request. Each
+ * statement is encoded when it is added (stream parameters are read at that point), and once the
+ * encoded size passes the spill threshold the body moves to a temp file, which is memory mapped
+ * and streamed as the request body at commit. Heap use stays bounded by the threshold no matter
+ * how many statements the transaction holds.
+ */
+class L4TxBuffer implements Closeable {
+
+  private static final int MaxSummary = 64;
+  private static final long MapWindowBytes = 64L * 1024 * 1024;
+  private static final byte[] Open = {'['}, Close = {']'};
+
+  private final long spillBytes;
+  private final Set<String> sqls = new LinkedHashSet<>();
+  private Writer writer;
+
+  private byte[] mem = new byte[1024];
+  private int memSize;
+  private Path file;
+  private FileChannel channel;
+  private int count;
+
+  private final OutputStream sink = new OutputStream() {
+    @Override public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+    @Override public void write(byte[] b, int off, int len) throws IOException {
+      if (channel != null) {
+        ByteBuffer buf = ByteBuffer.wrap(b, off, len);
+        while (buf.hasRemaining()) {
+          channel.write(buf);
+        }
+        return;
+      }
+      if (memSize + len > mem.length) {
+        mem = Arrays.copyOf(mem, Math.max(mem.length * 2, memSize + len));
+      }
+      System.arraycopy(b, off, mem, memSize, len);
+      memSize += len;
+    }
+  };
+
+  /** @param spillBytes encoded size past which statements move to a temp file, <= 0 never spills. */
+  L4TxBuffer(long spillBytes) {
+    this.spillBytes = spillBytes;
+    this.writer = writerFor(sink);
+  }
+
+  private static Writer writerFor(OutputStream out) {
+    return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+  }
+
+  void add(L4Statement statement) {
+    JsonArray json = statement.build();
+    long mark = -1;
+    try {
+      mark = size();
+      if (count > 0) {
+        writer.write(',');
+      }
+      json.writeTo(writer);
+      writer.flush();
+    } catch (IOException e) {
+      writer = writerFor(sink); // drop whatever the failed write left buffered
+      if (mark >= 0) {
+        truncate(mark);
+      }
+      throw new IllegalStateException(format("Unable to buffer statement %s", statement), e);
+    }
+    count++;
+    if (sqls.size() < MaxSummary) {
+      sqls.add(statement.sql);
+    }
+    if (channel == null && spillBytes > 0 && memSize > spillBytes) {
+      try {
+        spill();
+      } catch (IOException e) {
+        throw new IllegalStateException("Unable to spill transaction buffer to disk", e);
+      }
+    }
+  }
+
+  L4TxMark mark() {
+    try {
+      return new L4TxMark(this, count, size());
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to mark transaction buffer", e);
+    }
+  }
+
+  /** Drops the statements added after the mark. The summary is left as is. */
+  void rollbackTo(L4TxMark mark) {
+    if (mark.tx != this || mark.count > count) {
+      throw new IllegalStateException(format("%s does not belong to %s", mark, this));
+    }
+    truncate(mark.size);
+    count = mark.count;
+  }
+
+  private void truncate(long size) {
+    try {
+      if (channel != null) {
+        channel.truncate(size);
+        channel.position(size);
+      } else {
+        memSize = (int) size;
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(format("Unable to truncate transaction buffer to %d bytes", size), e);
+    }
+  }
+
+  private void spill() throws IOException {
+    file = Files.createTempFile("l4tx", ".json");
+    channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    channel.write(ByteBuffer.wrap(mem, 0, memSize));
+    mem = null;
+    memSize = 0;
+  }
+
+  int count() {
+    return count;
+  }
+
+  /** Encoded size of the buffered statements, without the enclosing brackets. */
+  long size() throws IOException {
+    return channel != null ? channel.position() : memSize;
+  }
+
+  boolean isSpilled() {
+    return channel != null;
+  }
+
+  /** One statement per distinct SQL text (up to 64, no parameters), for logs and metrics. */
+  L4Statement[] summary() {
+    List<L4Statement> out = new ArrayList<>(sqls.size());
+    for (String sql : sqls) {
+      out.add(new L4Statement().sql(sql));
+    }
+    return out.toArray(new L4Statement[0]);
+  }
+
+  /** Writes the buffered statements as a JSON array request body. */
+  long writeTo(HttpURLConnection conn) throws IOException {
+    long size = size() + 2;
+    conn.setFixedLengthStreamingMode(size);
+    try (OutputStream os = conn.getOutputStream()) {
+      os.write(Open);
+      if (channel == null) {
+        os.write(mem, 0, memSize);
+      } else {
+        WritableByteChannel out = Channels.newChannel(os);
+        long end = channel.position();
+        for (long pos = 0; pos < end; pos += MapWindowBytes) {
+          MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(MapWindowBytes, end - pos));
+          while (window.hasRemaining()) {
+            out.write(window);
+          }
+        }
+      }
+      os.write(Close);
+    }
+    return size;
+  }
+
+  @Override public void close() {
+    mem = null;
+    memSize = 0;
+    if (channel != null) {
+      try {
+        channel.close();
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        throw new IllegalStateException(format("Unable to delete transaction spill file [%s]", file), e);
+      } finally {
+        channel = null;
+      }
+    }
+  }
+
+  @Override public String toString() {
+    return format("tx [%d statements, %s]", count, channel != null ? file : memSize + "B");
+  }
+
+}
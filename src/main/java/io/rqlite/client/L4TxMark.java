@@ -0,0 +1,25 @@
+package io.rqlite.client;
+
+import static java.lang.String.format;
+
+/**
+ * A position in the statements buffered by an open transaction, see {@link L4Client#mark()}.
+ * Only valid for the transaction it was taken in.
+ */
+public final class L4TxMark {
+
+  final Object tx;
+  public final int count;
+  final long size;
+
+  L4TxMark(Object tx, int count, long size) {
+    this.tx = tx;
+    this.count = count;
+    this.size = size;
+  }
+
+  @Override public String toString() {
+    return format("mark [%d statements, %dB]", count, size);
+  }
+
+}
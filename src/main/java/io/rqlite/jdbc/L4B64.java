@@ -0,0 +1,149 @@
+package io.rqlite.jdbc;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Base64 helpers that work on the cell text in place. rqlite returns BLOB
+ * values as Base64 strings, so validating, sizing and streaming them here
+ * avoids materializing a decoded copy until a caller really wants a byte[].
+ */
+public final class L4B64 {
+
+  private static final int[] dec = new int[128];
+
+  static {
+    Arrays.fill(dec, -1);
+    String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+    for (int i = 0; i < alphabet.length(); i++) {
+      dec[alphabet.charAt(i)] = i;
+    }
+  }
+
+  private L4B64() {}
+
+  private static int padding(CharSequence s) {
+    int n = s.length(), p = 0;
+    while (p < 2 && n - p > 0 && s.charAt(n - p - 1) == '=') {
+      p++;
+    }
+    return p;
+  }
+
+  /** Same acceptance rules as {@link java.util.Base64#getDecoder()}, without decoding. */
+  public static boolean isValid(CharSequence s) {
+    int p = padding(s);
+    int body = s.length() - p;
+    for (int i = 0; i < body; i++) {
+      char c = s.charAt(i);
+      if (c >= 128 || dec[c] < 0) {
+        return false;
+      }
+    }
+    int tail = body % 4;
+    if (p == 0) {
+      return tail != 1;
+    }
+    return p == 1 ? tail == 3 : tail == 2;
+  }
+
+  public static long decodedLength(CharSequence s) {
+    long body = s.length() - padding(s);
+    return body / 4 * 3 + Math.max(0, body % 4 - 1);
+  }
+
+  /** Decodes a (previously validated) Base64 sequence as it is read. */
+  public static InputStream decoding(CharSequence s) {
+    return new Decoder(Objects.requireNonNull(s));
+  }
+
+  private static final class Decoder extends InputStream {
+
+    private final CharSequence src;
+    private final int end;
+    private final byte[] out = new byte[3];
+    private int pos, outPos, outLen;
+
+    Decoder(CharSequence src) {
+      this.src = src;
+      this.end = src.length() - padding(src);
+    }
+
+    private int d(int i) {
+      return dec[src.charAt(i)];
+    }
+
+    private void decodeUnit() {
+      int k = Math.min(4, end - pos), v = 0;
+      for (int i = 0; i < k; i++) {
+        v |= d(pos + i) << (18 - 6 * i);
+      }
+      pos += k;
+      out[0] = (byte) (v >> 16);
+      out[1] = (byte) (v >> 8);
+      out[2] = (byte) v;
+      outPos = 0;
+      outLen = k - 1;
+    }
+
+    @Override public int read() {
+      if (outPos == outLen) {
+        if (pos >= end) {
+          return -1;
+        }
+        decodeUnit();
+      }
+      return out[outPos++] & 0xff;
+    }
+
+    @Override public int read(byte[] b, int off, int len) {
+      Objects.requireNonNull(b);
+      if (off < 0 || len < 0 || len > b.length - off) {
+        throw new IndexOutOfBoundsException();
+      }
+      if (len == 0) {
+        return 0;
+      }
+      int n = 0;
+      while (n < len) {
+        if (outPos < outLen) {
+          b[off + n++] = out[outPos++];
+        } else if (pos >= end) {
+          break;
+        } else if (end - pos >= 4 && len - n >= 3) {
+          int v = d(pos) << 18 | d(pos + 1) << 12 | d(pos + 2) << 6 | d(pos + 3);
+          pos += 4;
+          b[off + n++] = (byte) (v >> 16);
+          b[off + n++] = (byte) (v >> 8);
+          b[off + n++] = (byte) v;
+        } else {
+          decodeUnit();
+        }
+      }
+      return n == 0 ? -1 : n;
+    }
+
+    @Override public long skip(long n) {
+      long skipped = 0;
+      while (skipped < n && outPos < outLen) {
+        outPos++;
+        skipped++;
+      }
+      long units = Math.min((n - skipped) / 3, (end - pos) / 4);
+      pos += (int) units * 4;
+      skipped += units * 3;
+      while (skipped < n && read() != -1) {
+        skipped++;
+      }
+      return skipped;
+    }
+
+    @Override public int available() {
+      long body = end - pos;
+      return (int) Math.min(Integer.MAX_VALUE, (outLen - outPos) + body / 4 * 3 + Math.max(0, body % 4 - 1));
+    }
+
+  }
+
+}
@@ -1,79 +1,292 @@
 package io.rqlite.jdbc;
 
-import java.io.ByteArrayOutputStream;
+import io.rqlite.client.L4Options;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.sql.Blob;
 import java.sql.SQLException;
-import java.util.Arrays;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Growable in-memory blob. Writes land in place in a doubling byte[]; once the
+ * content grows past {@link L4Options#lobSpillBytes} it moves to a temp file and
+ * further reads/writes go through positional channel I/O. {@link #free()} deletes
+ * the file; files of blobs collected without being freed are deleted the next time
+ * any blob spills or is freed.
+ */
 public class L4Blob implements Blob {
 
-    private ByteArrayOutputStream data = new ByteArrayOutputStream();
+    private static final byte[] Empty = new byte[0];
+    private static final int MaxArray = Integer.MAX_VALUE - 8;
+
+    /* The spill file of a blob, closed and deleted when free() is called or after the blob is collected. */
+    private static final class Spill extends PhantomReference<L4Blob> {
+        private static final ReferenceQueue<L4Blob> Collected = new ReferenceQueue<>();
+        private static final Set<Spill> Live = ConcurrentHashMap.newKeySet(); // keeps the references reachable
+
+        final Path path;
+        final FileChannel channel;
+
+        Spill(L4Blob blob, Path path, FileChannel channel) {
+            super(blob, Collected);
+            this.path = path;
+            this.channel = channel;
+            Live.add(this);
+        }
+
+        void delete() throws IOException {
+            Live.remove(this);
+            clear();
+            try {
+                channel.close();
+            } finally {
+                Files.deleteIfExists(path);
+            }
+        }
+
+        static void reap() {
+            Spill s;
+            while ((s = (Spill) Collected.poll()) != null) {
+                try {
+                    s.delete();
+                } catch (IOException e) {
+                    L4Log.warn("Unable to delete BLOB spill file [{}] - {}", s.path, e.toString());
+                }
+            }
+        }
+    }
+
+    private byte[] buf = Empty;
+    private long size;
+    private Spill spilled;
+    private FileChannel spill;
+    private String b64; // undecoded column value, see load()
+
+    public L4Blob() {}
+
+    /** A blob over a Base64 column value, decoded only when its bytes are first touched. */
+    public L4Blob(String b64) {
+        this.b64 = b64;
+    }
+
+    private void load() {
+        if (b64 != null) {
+            buf = Base64.getDecoder().decode(b64);
+            size = buf.length;
+            b64 = null;
+        }
+    }
+
+    private static SQLException badIo(IOException e) {
+        return new SQLException(e.getMessage(), L4Err.SqlStateGeneralError, e);
+    }
+
+    private long offsetOf(long pos) throws SQLException {
+        if (pos < 1 || pos - 1 > size) {
+            throw new SQLException("Invalid BLOB position: " + pos, L4Err.SqlStateInvalidParam);
+        }
+        return pos - 1;
+    }
+
+    private void ensureCapacity(long capacity) throws IOException, SQLException {
+        if (spill != null || capacity <= buf.length) {
+            return;
+        }
+        if (L4Options.lobSpillBytes > 0 && capacity > L4Options.lobSpillBytes) {
+            Spill.reap();
+            Path path = L4Options.lobSpillDir != null
+                ? Files.createTempFile(Paths.get(L4Options.lobSpillDir), "l4blob", ".bin")
+                : Files.createTempFile("l4blob", ".bin");
+            spill = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            spilled = new Spill(this, path, spill);
+            spill.write(ByteBuffer.wrap(buf, 0, (int) size), 0);
+            buf = Empty;
+            return;
+        }
+        if (capacity > MaxArray) {
+            throw L4Err.badParam(String.format("BLOB size %d exceeds %d bytes held in memory, see lobSpillBytes", capacity, MaxArray));
+        }
+        long grown = Math.max(capacity, Math.max(64, (long) buf.length << 1));
+        byte[] next = new byte[(int) Math.min(grown, MaxArray)];
+        System.arraycopy(buf, 0, next, 0, (int) size);
+        buf = next;
+    }
+
+    private void write(long off, byte[] src, int srcOff, int len) throws IOException, SQLException {
+        ensureCapacity(off + len);
+        if (spill != null) {
+            ByteBuffer bb = ByteBuffer.wrap(src, srcOff, len);
+            long at = off;
+            while (bb.hasRemaining()) {
+                at += spill.write(bb, at);
+            }
+        } else {
+            System.arraycopy(src, srcOff, buf, (int) off, len);
+        }
+        size = Math.max(size, off + len);
+    }
+
+    private int read(long off, byte[] dst, int dstOff, int len) throws IOException {
+        int n = (int) Math.min(len, size - off);
+        if (n <= 0) {
+            return -1;
+        }
+        if (spill != null) {
+            ByteBuffer bb = ByteBuffer.wrap(dst, dstOff, n);
+            long at = off;
+            while (bb.hasRemaining()) {
+                int r = spill.read(bb, at);
+                if (r < 0) {
+                    break;
+                }
+                at += r;
+            }
+            return n - bb.remaining();
+        }
+        System.arraycopy(buf, (int) off, dst, dstOff, n);
+        return n;
+    }
+
+    private InputStream streamOf(long off, long len) {
+        if (spill == null) {
+            return new ByteArrayInputStream(buf, (int) off, (int) len); // a view, not a copy
+        }
+        long end = off + len;
+        return new InputStream() {
+            private long at = off;
+            @Override public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+            }
+            @Override public int read(byte[] b, int o, int l) throws IOException {
+                if (l == 0) {
+                    return 0;
+                }
+                int n = L4Blob.this.read(at, b, o, (int) Math.min(l, end - at));
+                if (n > 0) {
+                    at += n;
+                }
+                return n;
+            }
+        };
+    }
 
     @Override
     public long length() throws SQLException {
-        return data.size();
+        return b64 != null ? L4B64.decodedLength(b64) : size;
     }
 
     @Override
     public byte[] getBytes(long pos, int length) throws SQLException {
-        byte[] bytes = data.toByteArray();
-        int offset = (int) (pos - 1);
-        return Arrays.copyOfRange(bytes, offset, offset + length);
+        load();
+        long offset = offsetOf(pos);
+        byte[] bytes = new byte[(int) Math.max(0, Math.min(length, size - offset))];
+        try {
+            read(offset, bytes, 0, bytes.length);
+        } catch (IOException e) {
+            throw badIo(e);
+        }
+        return bytes;
     }
 
     @Override
     public int setBytes(long pos, byte[] bytes) throws SQLException {
-        int offset = (int) (pos - 1);
-        byte[] current = data.toByteArray();
-        ByteArrayOutputStream newData = new ByteArrayOutputStream();
-        newData.write(current, 0, Math.min(offset, current.length));
-        newData.write(bytes, 0, bytes.length);
-        if (offset + bytes.length < current.length) {
-            newData.write(current, offset + bytes.length, current.length - (offset + bytes.length));
-        }
-        data = newData;
-        return bytes.length;
+        return setBytes(pos, bytes, 0, bytes.length);
     }
 
     @Override
     public int setBytes(long pos, byte[] bytes, int offset, int len) throws SQLException {
-        int base = (int) (pos - 1);
-        byte[] subBytes = Arrays.copyOfRange(bytes, offset, offset + len);
-        return setBytes(pos, subBytes);
+        load();
+        try {
+            write(offsetOf(pos), bytes, offset, len);
+        } catch (IOException e) {
+            throw badIo(e);
+        }
+        return len;
     }
 
     @Override
-    public java.io.InputStream getBinaryStream() throws SQLException {
-        return new java.io.ByteArrayInputStream(data.toByteArray());
+    public InputStream getBinaryStream() throws SQLException {
+        if (b64 != null) {
+            return L4B64.decoding(b64);
+        }
+        return streamOf(0, size);
     }
 
     @Override
-    public java.io.InputStream getBinaryStream(long pos, long length) throws SQLException {
-        byte[] bytes = data.toByteArray();
-        int offset = (int) (pos - 1);
-        int end = Math.min(bytes.length, offset + (int) length);
-        if (offset < 0 || offset > bytes.length) {
-            throw new SQLException("Invalid BLOB position");
-        }
-        return new java.io.ByteArrayInputStream(Arrays.copyOfRange(bytes, offset, end));
+    public InputStream getBinaryStream(long pos, long length) throws SQLException {
+        load();
+        long offset = offsetOf(pos);
+        return streamOf(offset, Math.min(length, size - offset));
     }
 
     @Override
-    public java.io.OutputStream setBinaryStream(long pos) throws SQLException {
-        throw new SQLException("Feature not supported");
+    public OutputStream setBinaryStream(long pos) throws SQLException {
+        load();
+        long start = offsetOf(pos);
+        return new OutputStream() {
+            private long at = start;
+            @Override public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+            @Override public void write(byte[] b, int o, int l) throws IOException {
+                try {
+                    L4Blob.this.write(at, b, o, l);
+                } catch (SQLException e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+                at += l;
+            }
+        };
     }
 
     @Override
     public long position(byte[] pattern, long start) throws SQLException {
-        byte[] bytes = data.toByteArray();
-        int offset = (int) (start - 1);
-        outer: for (int i = offset; i <= bytes.length - pattern.length; i++) {
-            for (int j = 0; j < pattern.length; j++) {
-                if (bytes[i + j] != pattern[j]) {
-                    continue outer;
+        load();
+        long offset = start - 1;
+        if (offset < 0 || pattern.length == 0) {
+            return -1;
+        }
+        if (spill == null) {
+            outer: for (int i = (int) offset; i <= size - pattern.length; i++) {
+                for (int j = 0; j < pattern.length; j++) {
+                    if (buf[i + j] != pattern[j]) {
+                        continue outer;
+                    }
                 }
+                return i + 1; // 1-based position
             }
-            return i + 1; // 1-based position
+            return -1;
+        }
+        int window = Math.max(8192, pattern.length * 2);
+        byte[] chunk = new byte[window];
+        try {
+            for (long base = offset; base <= size - pattern.length; base += window - pattern.length + 1) {
+                int n = read(base, chunk, 0, window);
+                outer: for (int i = 0; i <= n - pattern.length; i++) {
+                    for (int j = 0; j < pattern.length; j++) {
+                        if (chunk[i + j] != pattern[j]) {
+                            continue outer;
+                        }
+                    }
+                    return base + i + 1;
+                }
+            }
+        } catch (IOException e) {
+            throw badIo(e);
         }
         return -1;
     }
@@ -89,16 +302,35 @@ public class L4Blob implements Blob {
 
     @Override
     public void truncate(long len) throws SQLException {
-        byte[] bytes = data.toByteArray();
-        if (len < bytes.length) {
-            data.reset();
-            data.write(bytes, 0, (int) len);
+        load();
+        if (len < size) {
+            try {
+                if (spill != null) {
+                    spill.truncate(len);
+                }
+            } catch (IOException e) {
+                throw badIo(e);
+            }
+            size = Math.max(0, len);
         }
     }
 
     @Override
     public void free() throws SQLException {
-        data.reset();
+        b64 = null;
+        buf = Empty;
+        size = 0;
+        Spill.reap();
+        if (spilled != null) {
+            try {
+                spilled.delete();
+            } catch (IOException e) {
+                throw badIo(e);
+            } finally {
+                spill = null;
+                spilled = null;
+            }
+        }
     }
 
 }
@@ -1,59 +1,112 @@
 package io.rqlite.jdbc;
 
-import javax.sql.rowset.serial.SerialClob;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.sql.Clob;
 import java.sql.SQLException;
 
 public class L4Clob implements Clob {
 
-  private StringBuilder data = new StringBuilder();
+  private final StringBuilder data = new StringBuilder();
+
+  private int offsetOf(long pos) throws SQLException {
+    if (pos < 1 || pos - 1 > data.length()) {
+      throw new SQLException("Invalid CLOB position: " + pos, L4Err.SqlStateInvalidParam);
+    }
+    return (int) (pos - 1);
+  }
+
+  /** Writes in place, overwriting existing characters and growing the buffer as needed. */
+  private void write(int offset, CharSequence chars, int start, int end) {
+    int overlap = Math.min(end - start, data.length() - offset);
+    for (int i = 0; i < overlap; i++) {
+      data.setCharAt(offset + i, chars.charAt(start + i));
+    }
+    data.append(chars, start + overlap, end);
+  }
+
+  /** Reads the live buffer without copying it; later writes are visible to the reader. */
+  private Reader readerOf(int start, int end) {
+    return new Reader() {
+      private int at = start;
+      @Override public int read(char[] cbuf, int off, int len) {
+        int lim = Math.min(end, data.length());
+        if (len == 0) {
+          return 0;
+        }
+        if (at >= lim) {
+          return -1;
+        }
+        int n = Math.min(len, lim - at);
+        data.getChars(at, at + n, cbuf, off);
+        at += n;
+        return n;
+      }
+      @Override public void close() {}
+    };
+  }
 
   @Override public long length() throws SQLException {
     return data.length();
   }
 
   @Override public String getSubString(long pos, int length) throws SQLException {
-    int offset = (int) (pos - 1);
-    return data.substring(offset, offset + length);
+    int offset = offsetOf(pos);
+    return data.substring(offset, Math.min(data.length(), offset + length));
   }
 
   @Override public Reader getCharacterStream() throws SQLException {
-    return new StringReader(data.toString());
+    return readerOf(0, Integer.MAX_VALUE);
   }
 
   @Override public InputStream getAsciiStream() throws SQLException {
-    try {
-      return new ByteArrayInputStream(data.toString().getBytes("US-ASCII"));
-    } catch (java.io.UnsupportedEncodingException e) {
-      throw new SQLException("Unsupported ASCII encoding", e);
-    }
+    return new ByteArrayInputStream(data.toString().getBytes(StandardCharsets.US_ASCII));
   }
 
   @Override public int setString(long pos, String str) throws SQLException {
-    int offset = (int) (pos - 1);
-    String substr = str.substring(offset, Math.min(str.length(), offset + str.length()));
-    data.replace(offset, offset + substr.length(), substr);
-    return substr.length();
+    return setString(pos, str, 0, str.length());
   }
 
   @Override public int setString(long pos, String str, int offset, int len) throws SQLException {
-    int base = (int) (pos - 1);
-    String substr = str.substring(offset, offset + len);
-    data.replace(base, base + substr.length(), substr);
-    return substr.length();
+    write(offsetOf(pos), str, offset, offset + len);
+    return len;
   }
 
   @Override public OutputStream setAsciiStream(long pos) throws SQLException {
-    throw new SQLException("Feature not supported");
+    int start = offsetOf(pos);
+    return new OutputStream() {
+      private int at = start;
+      @Override public void write(int b) {
+        write(new byte[] {(byte) b}, 0, 1);
+      }
+      @Override public void write(byte[] b, int off, int len) {
+        String s = new String(b, off, len, StandardCharsets.US_ASCII);
+        L4Clob.this.write(at, s, 0, s.length());
+        at += s.length();
+      }
+    };
   }
 
   @Override public Writer setCharacterStream(long pos) throws SQLException {
-    throw new SQLException("Feature not supported");
+    int start = offsetOf(pos);
+    return new Writer() {
+      private int at = start;
+      @Override public void write(char[] cbuf, int off, int len) {
+        L4Clob.this.write(at, java.nio.CharBuffer.wrap(cbuf), off, off + len);
+        at += len;
+      }
+      @Override public void write(String str, int off, int len) {
+        L4Clob.this.write(at, str, off, off + len);
+        at += len;
+      }
+      @Override public void flush() {}
+      @Override public void close() {}
+    };
   }
 
   @Override public Reader getCharacterStream(long pos, long length) throws SQLException {
-    return new StringReader(getSubString(pos, (int) length));
+    int offset = offsetOf(pos);
+    return readerOf(offset, (int) Math.min(data.length(), offset + length));
   }
 
   @Override public long position(String searchstr, long start) throws SQLException {
@@ -73,6 +126,7 @@ public class L4Clob implements Clob {
 
   @Override public void free() throws SQLException {
     data.setLength(0);
+    data.trimToSize();
   }
 
 }
@@ -19,6 +19,9 @@ public class L4Conn implements Connection {
   private int        holdability;
   private SQLWarning root;
 
+  private final List<L4Sp> savepoints = new ArrayList<>();
+  private int              savepointId;
+
   public L4Conn(L4Client client) throws SQLException {
     if (client == null) {
       throw new SQLException("L4Client cannot be null", SqlStateInvalidParam);
@@ -90,6 +93,7 @@ public class L4Conn implements Connection {
   @Override public void commit() throws SQLException {
     checkClosed();
     L4Log.debug("{} - commit", this);
+    savepoints.clear();
     client.stopBuffer(true, res -> {
       L4Log.debug("{} - commit result: {}", this, res);
       if (res.results != null) {
@@ -111,6 +115,7 @@ public class L4Conn implements Connection {
   @Override public void rollback() throws SQLException {
     checkClosed();
     L4Log.debug("{} - rollback", this);
+    savepoints.clear();
     client.stopBuffer(false, null);
   }
 
@@ -215,24 +220,56 @@ public class L4Conn implements Connection {
     return holdability;
   }
 
-  @Override public Savepoint setSavepoint() throws SQLException {
+  private Savepoint newSavepoint(String name) throws SQLException {
     checkClosed();
-    throw notSupported("Savepoints");
+    if (!client.isBuffering()) {
+      throw badState("Savepoints require auto-commit to be disabled");
+    }
+    L4Sp sp = new L4Sp(++savepointId, name, client.mark());
+    savepoints.add(sp);
+    L4Log.debug("{} - setSavepoint {}", this, sp);
+    return sp;
+  }
+
+  /* Savepoints set after the given one are released along with it, or when rolling back to it. */
+  private int indexOf(Savepoint savepoint) throws SQLException {
+    int idx = savepoint instanceof L4Sp ? savepoints.indexOf(savepoint) : -1;
+    if (idx == -1) {
+      throw badState(format("Savepoint %s is not active in this transaction", savepoint));
+    }
+    return idx;
+  }
+
+  @Override public Savepoint setSavepoint() throws SQLException {
+    return newSavepoint(null);
   }
 
   @Override public Savepoint setSavepoint(String name) throws SQLException {
-    checkClosed();
-    throw notSupported("Savepoints");
+    if (name == null) {
+      throw badParam("Savepoint name cannot be null");
+    }
+    return newSavepoint(name);
   }
 
+  /** Truncates the buffered transaction back to the savepoint, no request is sent to rqlite. */
   @Override public void rollback(Savepoint savepoint) throws SQLException {
     checkClosed();
-    throw notSupported("Savepoints");
+    int idx = indexOf(savepoint);
+    L4Sp sp = savepoints.get(idx);
+    L4Log.debug("{} - rollback to {}", this, sp);
+    try {
+      client.rollbackTo(sp.mark);
+    } catch (Exception e) {
+      throw badState(format("Unable to roll back to %s", sp), e);
+    }
+    savepoints.subList(idx + 1, savepoints.size()).clear();
   }
 
   @Override public void releaseSavepoint(Savepoint savepoint) throws SQLException {
     checkClosed();
-    throw notSupported("Savepoints");
+    int idx = indexOf(savepoint);
+    L4Log.debug("{} - releaseSavepoint {}", this, savepoint);
+    savepoints.subList(idx, savepoints.size()).clear();
   }
 
   @Override public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
@@ -256,6 +293,7 @@ public class L4Conn implements Connection {
 
   @Override public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
     checkClosed();
+    L4St.checkAutoGeneratedKeys(autoGeneratedKeys);
     return new L4Ps(client, this, sql);
   }
 
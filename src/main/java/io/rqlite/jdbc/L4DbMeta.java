@@ -709,7 +709,7 @@ public class L4DbMeta implements DatabaseMetaData {
   }
 
   @Override public boolean supportsGetGeneratedKeys() {
-    return false;
+    return true;
   }
 
   @Override public ResultSet getSuperTypes(String catalog, String schemaPattern, String typeNamePattern) throws SQLException {
@@ -2,6 +2,7 @@ package io.rqlite.jdbc;
 
 import io.rqlite.client.L4Client;
 import io.rqlite.client.L4Http;
+import io.rqlite.client.L4Metrics;
 import io.rqlite.client.L4Options;
 
 import java.sql.*;
@@ -114,7 +115,7 @@ public class L4Driver implements Driver {
 
   @Override public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
     Properties mergedProps = mergeProperties(info, new HashMap<String, String>());
-    DriverPropertyInfo[] props = new DriverPropertyInfo[10];
+    DriverPropertyInfo[] props = new DriverPropertyInfo[21];
 
     props[0] = new DriverPropertyInfo(kUser, mergedProps.getProperty(kUser));
     props[0].description = "Username for rqlite authentication";
@@ -156,6 +157,50 @@ public class L4Driver implements Driver {
     props[9].description = "Path to CA certificate for HTTPS connections";
     props[9].required = false;
 
+    props[10] = new DriverPropertyInfo(kLobSpillBytes, mergedProps.getProperty(kLobSpillBytes, String.valueOf(L4Options.lobSpillBytes)));
+    props[10].description = "Size in bytes past which a Blob moves to a temp file (<= 0 disables)";
+    props[10].required = false;
+
+    props[11] = new DriverPropertyInfo(kMetrics, mergedProps.getProperty(kMetrics, String.valueOf(L4Options.metrics != L4Metrics.None)));
+    props[11].description = "Record request metrics in L4MetricsRegistry.global(), exposed over JMX";
+    props[11].required = false;
+
+    props[12] = new DriverPropertyInfo(kSlowQueryMs, mergedProps.getProperty(kSlowQueryMs, String.valueOf(L4Options.slowQueryMs)));
+    props[12].description = "Log requests taking this many milliseconds or more, with SQL fingerprints (< 0 disables)";
+    props[12].required = false;
+
+    props[13] = new DriverPropertyInfo(kTxSpillBytes, mergedProps.getProperty(kTxSpillBytes, String.valueOf(L4Options.txSpillBytes)));
+    props[13].description = "Size in bytes past which a buffered transaction moves to a temp file (<= 0 disables)";
+    props[13].required = false;
+
+    props[14] = new DriverPropertyInfo(kReadYourWrites, mergedProps.getProperty(kReadYourWrites, String.valueOf(L4Options.readYourWrites)));
+    props[14].description = "Serve level=none reads from the leader until the node has applied this connection's last write";
+    props[14].required = false;
+
+    props[15] = new DriverPropertyInfo(kJdkHttp, mergedProps.getProperty(kJdkHttp, String.valueOf(L4Options.jdkHttp)));
+    props[15].description = "Send requests with java.net.http.HttpClient on Java 21+, friendly to virtual threads";
+    props[15].required = false;
+
+    props[16] = new DriverPropertyInfo(kHttp2, mergedProps.getProperty(kHttp2, String.valueOf(L4Options.http2)));
+    props[16].description = "Multiplex requests over HTTP/2 (TLS ALPN or h2c upgrade), needs Java 21+";
+    props[16].required = false;
+
+    props[17] = new DriverPropertyInfo(kHttp2Connections, mergedProps.getProperty(kHttp2Connections, String.valueOf(L4Options.http2Connections)));
+    props[17].description = "HTTP/2 connections per node that requests are spread over";
+    props[17].required = false;
+
+    props[18] = new DriverPropertyInfo(kNio, mergedProps.getProperty(kNio, String.valueOf(L4Options.nio)));
+    props[18].description = "Pipeline requests to http:// nodes over non-blocking keep-alive connections";
+    props[18].required = false;
+
+    props[19] = new DriverPropertyInfo(kNioConnections, mergedProps.getProperty(kNioConnections, String.valueOf(L4Options.nioConnections)));
+    props[19].description = "Keep-alive connections per node for the NIO transport";
+    props[19].required = false;
+
+    props[20] = new DriverPropertyInfo(kNioPipeline, mergedProps.getProperty(kNioPipeline, String.valueOf(L4Options.nioPipeline)));
+    props[20].description = "Requests in flight per NIO connection (1 disables pipelining)";
+    props[20].required = false;
+
     return props;
   }
 
@@ -3,6 +3,7 @@ package io.rqlite.jdbc;
 import io.rqlite.client.L4Result;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
 import java.sql.SQLWarning;
 
 import static java.lang.String.format;
@@ -20,7 +21,9 @@ public class L4Err {
     SqlStateInvalidType         = "22005",
     SqlStateInvalidQuery        = "42000",
     SqlStateConnectionError     = "08S01",
-    SqlStateInvalidTransaction  = "25000";
+    SqlStateInvalidTransaction  = "25000",
+    SqlStateTimeout             = "HYT00",
+    SqlStateCancelled           = "HY008";
 
   public static SQLException generalError(String msg) {
     return new SQLException(msg, SqlStateGeneralError);
@@ -219,6 +222,14 @@ public class L4Err {
     return new SQLException(format("Execution failed: %s", e.getMessage()), SqlStateConnectionError, e);
   }
 
+  public static SQLException queryTimedOut(long timeoutMs, Exception e) {
+    return new SQLTimeoutException(format("Query timed out after %dms", timeoutMs), SqlStateTimeout, e);
+  }
+
+  public static SQLException queryCancelled(Exception e) {
+    return new SQLException("Query cancelled", SqlStateCancelled, e);
+  }
+
   public static SQLException badState(String msg) {
     return new SQLException(msg, SqlStateInvalidTransaction);
   }
@@ -1,6 +1,7 @@
 package io.rqlite.jdbc;
 
 import io.rqlite.client.L4Statement;
+import io.rqlite.json.JsonStream;
 import javax.sql.rowset.serial.SerialClob;
 import java.io.*;
 import java.math.*;
@@ -12,6 +13,8 @@ import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 import static io.rqlite.jdbc.L4Err.*;
 import static java.sql.Types.*;
@@ -22,6 +25,7 @@ public class L4Jdbc {
   public static final int VARCHAR_STREAM    = Types.VARCHAR   + 1000; // Custom type to distinguish stream
   public static final int UNICODE_STREAM    = Types.VARCHAR   + 1001; // Custom type for deprecated Unicode stream
   public static final int BINARY_STREAM     = Types.BLOB      + 1000; // Custom type for binary stream
+  public static final int BLOB_STREAM       = Types.BLOB      + 1001; // Custom type for lazily decoded Blob
   public static final int CHARACTER_STREAM  = Types.VARCHAR   + 1002;
   public static final int CLOB_STREAM       = Types.VARCHAR   + 1003;
   public static final int OBJECT_STREAM     = Types.OTHER     + 1000;
@@ -29,6 +33,8 @@ public class L4Jdbc {
   public static final int NCLOB_STREAM      = Types.NCLOB     + 1000;
   public static final int NCHARACTER_STREAM = Types.NVARCHAR  + 1000;
 
+  public static final String GeneratedKeyColumn = "GENERATED_KEY"; // last_insert_id, when there is no RETURNING clause
+
   // constants for rqlite types
   public static final String RQ_INT       = "INT";
   public static final String RQ_INTEGER   = "INTEGER";
@@ -232,12 +238,7 @@ public class L4Jdbc {
 
   public static InputStream castBinaryStream(String value, int columnIndex, int sourceJdbcType) throws SQLException {
     if (sourceJdbcType == BLOB) {
-      try {
-        byte[] bytes = Base64.getDecoder().decode(value);
-        return new ByteArrayInputStream(bytes);
-      } catch (IllegalArgumentException e) {
-        throw badB64(columnIndex, value, e);
-      }
+      return L4B64.decoding(checkB64(value, columnIndex));
     } else if (anyOf(sourceJdbcType, VARCHAR, CLOB, NCLOB, NVARCHAR, INTEGER, DOUBLE, NUMERIC, BOOLEAN)) {
       return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8)); // Encode as UTF-8
     }
@@ -251,6 +252,18 @@ public class L4Jdbc {
     throw castError(value, columnIndex, sourceJdbcType, CHARACTER_STREAM);
   }
 
+  private static String checkB64(String value, int columnIndex) throws SQLException {
+    if (!L4B64.isValid(value)) {
+      try {
+        Base64.getDecoder().decode(value); // reports the offending character
+      } catch (IllegalArgumentException e) {
+        throw badB64(columnIndex, value, e);
+      }
+      throw badB64(columnIndex, value, new IllegalArgumentException("Invalid Base64 input"));
+    }
+    return value;
+  }
+
   public static byte[] castBlob(String value, int columnIndex, int sourceJdbcType) throws SQLException {
     if (sourceJdbcType == BLOB) {
       try {
@@ -262,6 +275,13 @@ public class L4Jdbc {
     throw castError(value, columnIndex, sourceJdbcType, BLOB);
   }
 
+  public static Blob castBlobRef(String value, int columnIndex, int sourceJdbcType) throws SQLException {
+    if (sourceJdbcType == BLOB) {
+      return new L4Blob(checkB64(value, columnIndex));
+    }
+    throw castError(value, columnIndex, sourceJdbcType, BLOB);
+  }
+
   public static Clob castClob(String value, int columnIndex, int sourceJdbcType) throws SQLException {
     if (anyOf(sourceJdbcType, VARCHAR, CLOB, NCLOB, NVARCHAR)) {
       return new SerialClob(value.toCharArray());
@@ -271,6 +291,10 @@ public class L4Jdbc {
 
   public static Date castDate(String value, int columnIndex, int sourceJdbcType, Calendar cal) throws SQLException {
     if (anyOf(sourceJdbcType, VARCHAR, DATE, TIMESTAMP)) {
+      Date fast = L4TsCodec.parseDate(value, cal);
+      if (fast != null) {
+        return fast;
+      }
       try {
         // Try parsing as ISO timestamp (e.g., "2023-10-15T00:00:00Z")
         try {
@@ -279,8 +303,7 @@ public class L4Jdbc {
         } catch (DateTimeParseException e) {
           // Fallback to ISO local date (e.g., "2023-10-15")
           LocalDate localDate = LocalDate.parse(value, DateTimeFormatter.ISO_LOCAL_DATE);
-          Calendar calendar = cal != null ? cal : Calendar.getInstance();
-          ZonedDateTime zdt = localDate.atStartOfDay(calendar.getTimeZone().toZoneId());
+          ZonedDateTime zdt = localDate.atStartOfDay(L4TsCodec.zoneOf(cal));
           return new Date(zdt.toInstant().toEpochMilli());
         }
       } catch (DateTimeParseException e) {
@@ -299,11 +322,14 @@ public class L4Jdbc {
 
   public static Time castTime(String value, int columnIndex, int sourceJdbcType, Calendar cal) throws SQLException {
     if (anyOf(sourceJdbcType, VARCHAR, TIME, TIMESTAMP)) {
+      Time fast = L4TsCodec.parseTime(value, cal);
+      if (fast != null) {
+        return fast;
+      }
       try {
         LocalTime localTime = LocalTime.parse(value, DateTimeFormatter.ISO_LOCAL_TIME);
-        Calendar calendar = cal != null ? cal : Calendar.getInstance();
         LocalDateTime ldt = localTime.atDate(LocalDate.ofEpochDay(0)); // Epoch day for Time
-        ZonedDateTime zdt = ldt.atZone(calendar.getTimeZone().toZoneId());
+        ZonedDateTime zdt = ldt.atZone(L4TsCodec.zoneOf(cal));
         return new Time(zdt.toInstant().toEpochMilli());
       } catch (DateTimeParseException e) {
         throw badTime(columnIndex, value, e);
@@ -321,12 +347,14 @@ public class L4Jdbc {
 
   public static Timestamp castTimestamp(Object raw, int columnIndex, int sourceJdbcType, Calendar cal) throws SQLException {
     if (raw instanceof Timestamp) {
-      LocalDateTime utcTs = L4Utc.utcDateTimeOf((Timestamp) raw);
-      long ms = utcTs.toInstant(ZoneOffset.UTC).toEpochMilli();
-      return new Timestamp(ms);
+      return new Timestamp(((Timestamp) raw).getTime());
     }
     String value = raw.toString();
     if (anyOf(sourceJdbcType, VARCHAR, TIMESTAMP, DATE)) {
+      Timestamp fast = L4TsCodec.parseTimestamp(value, cal);
+      if (fast != null) {
+        return fast;
+      }
       try {
         // Try parsing as ISO timestamp (e.g., "2023-10-15T14:30:00Z")
         try {
@@ -334,9 +362,8 @@ public class L4Jdbc {
           return new Timestamp(instant.toEpochMilli());
         } catch (DateTimeParseException e) {
           // Fallback to ISO local date-time (e.g., "2023-10-15 14:30:00")
-          LocalDateTime localDateTime = LocalDateTime.parse(value, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-          Calendar calendar = cal != null ? cal : Calendar.getInstance();
-          ZonedDateTime zdt = localDateTime.atZone(calendar.getTimeZone().toZoneId());
+          LocalDateTime localDateTime = LocalDateTime.parse(value, L4TsCodec.LocalTsFmt);
+          ZonedDateTime zdt = localDateTime.atZone(L4TsCodec.zoneOf(cal));
           return new Timestamp(zdt.toInstant().toEpochMilli());
         }
       } catch (DateTimeParseException e) {
@@ -444,6 +471,7 @@ public class L4Jdbc {
         case CLOB_STREAM:       return castClob(value, columnIndex, sourceJdbcType);
         case URL_STREAM:        return castURL(value, columnIndex, sourceJdbcType);
         case BINARY_STREAM:     return castBinaryStream(value, columnIndex, sourceJdbcType);
+        case BLOB_STREAM:       return castBlobRef(value, columnIndex, sourceJdbcType);
         case NCHARACTER_STREAM: return castNCharacterStream(value, columnIndex, sourceJdbcType);
         case NULL:              return null;
         default:
@@ -498,10 +526,25 @@ public class L4Jdbc {
     }
   }
 
+  private static final int MaxJdbcTypes = 512;
+  private static final Map<String, Integer> jdbcTypes = new ConcurrentHashMap<>();
+
+  /* Resolved once per distinct type string, rqlite repeats the same few names in every response. */
   public static int getJdbcType(String rqliteType) {
     if (rqliteType == null) {
       throw new IllegalArgumentException("type cannot be null");
     }
+    Integer jt = jdbcTypes.get(rqliteType);
+    if (jt == null) {
+      jt = resolveJdbcType(rqliteType);
+      if (jdbcTypes.size() < MaxJdbcTypes) {
+        jdbcTypes.putIfAbsent(rqliteType, jt);
+      }
+    }
+    return jt;
+  }
+
+  private static int resolveJdbcType(String rqliteType) {
     if (rqliteType.isEmpty()) {
       return NULL; // SELECT NULL AS TABLE_CAT, etc...
     }
@@ -645,6 +688,9 @@ public class L4Jdbc {
     if (o == null) {
       return RQ_NULL;
     }
+    if (o instanceof JsonStream) {
+      return ((JsonStream) o).isBinary() ? RQ_BLOB : RQ_CLOB;
+    }
     return rqTypeOf(o.getClass());
   }
 
@@ -684,6 +730,20 @@ public class L4Jdbc {
     return rawSql.toUpperCase().contains("SELECT");
   }
 
+  public static boolean isInsert(String rawSql) {
+    if (rawSql == null) {
+      return false;
+    }
+    String sql = rawSql.trim();
+    return sql.regionMatches(true, 0, "INSERT", 0, 6) || sql.regionMatches(true, 0, "REPLACE", 0, 7);
+  }
+
+  private static final Pattern Returning = Pattern.compile("\\bRETURNING\\b", Pattern.CASE_INSENSITIVE);
+
+  public static boolean hasReturning(String rawSql) {
+    return rawSql != null && Returning.matcher(rawSql).find();
+  }
+
   public static String quote(String val) {
     return val.replace("'", "''");
   }
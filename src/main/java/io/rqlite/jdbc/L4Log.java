@@ -2,13 +2,22 @@ package io.rqlite.jdbc;
 
 import java.util.Objects;
 import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
+/**
+ * Logging hooks for the driver. Each level is off until a logger is set. The fixed-arity overloads
+ * only build the argument array when the level is on, and {@link Supplier} arguments are resolved
+ * just before the message is handed to the logger. Hot paths that need to compute an argument
+ * should still check {@link #isTraceEnabled()} (or the other level checks) first.
+ */
 public class L4Log {
 
+  private static final Object[] NoArgs = new Object[0];
+
   public static BiConsumer<String, Object[]> traceFn, debugFn, infoFn, warnFn;
 
   public static void setTraceLogger(BiConsumer<String, Object[]> logFn) {
-    L4Log.debugFn = Objects.requireNonNull(logFn);
+    L4Log.traceFn = Objects.requireNonNull(logFn);
   }
 
   public static void setDebugLogger(BiConsumer<String, Object[]> logFn) {
@@ -23,27 +32,112 @@ public class L4Log {
     L4Log.warnFn = Objects.requireNonNull(logFn);
   }
 
+  public static boolean isTraceEnabled() {
+    return traceFn != null;
+  }
+
+  public static boolean isDebugEnabled() {
+    return debugFn != null;
+  }
+
+  public static boolean isInfoEnabled() {
+    return infoFn != null;
+  }
+
+  public static boolean isWarnEnabled() {
+    return warnFn != null;
+  }
+
+  private static void log(BiConsumer<String, Object[]> logFn, String fmt, Object[] args) {
+    for (int i = 0; i < args.length; i++) {
+      if (args[i] instanceof Supplier) {
+        args[i] = ((Supplier<?>) args[i]).get();
+      }
+    }
+    logFn.accept(fmt, args);
+  }
+
+  public static void trace(String msg) {
+    BiConsumer<String, Object[]> fn = traceFn;
+    if (fn != null) {
+      fn.accept(msg, NoArgs);
+    }
+  }
+
+  public static void trace(String fmt, Object a) {
+    BiConsumer<String, Object[]> fn = traceFn;
+    if (fn != null) {
+      log(fn, fmt, new Object[] {a});
+    }
+  }
+
+  public static void trace(String fmt, Object a, Object b) {
+    BiConsumer<String, Object[]> fn = traceFn;
+    if (fn != null) {
+      log(fn, fmt, new Object[] {a, b});
+    }
+  }
+
+  public static void trace(String fmt, Object a, Object b, Object c) {
+    BiConsumer<String, Object[]> fn = traceFn;
+    if (fn != null) {
+      log(fn, fmt, new Object[] {a, b, c});
+    }
+  }
+
   public static void trace(String fmt, Object ... args) {
-    if (debugFn != null) {
-      debugFn.accept(fmt, args);
+    BiConsumer<String, Object[]> fn = traceFn;
+    if (fn != null) {
+      log(fn, fmt, args);
+    }
+  }
+
+  public static void debug(String msg) {
+    BiConsumer<String, Object[]> fn = debugFn;
+    if (fn != null) {
+      fn.accept(msg, NoArgs);
+    }
+  }
+
+  public static void debug(String fmt, Object a) {
+    BiConsumer<String, Object[]> fn = debugFn;
+    if (fn != null) {
+      log(fn, fmt, new Object[] {a});
+    }
+  }
+
+  public static void debug(String fmt, Object a, Object b) {
+    BiConsumer<String, Object[]> fn = debugFn;
+    if (fn != null) {
+      log(fn, fmt, new Object[] {a, b});
+    }
+  }
+
+  public static void debug(String fmt, Object a, Object b, Object c) {
+    BiConsumer<String, Object[]> fn = debugFn;
+    if (fn != null) {
+      log(fn, fmt, new Object[] {a, b, c});
     }
   }
 
   public static void debug(String fmt, Object ... args) {
-    if (debugFn != null) {
-      debugFn.accept(fmt, args);
+    BiConsumer<String, Object[]> fn = debugFn;
+    if (fn != null) {
+      log(fn, fmt, args);
     }
   }
 
   public static void info(String fmt, Object ... args) {
-    if (infoFn != null) {
-      infoFn.accept(fmt, args);
+    BiConsumer<String, Object[]> fn = infoFn;
+    if (fn != null) {
+      log(fn, fmt, args);
     }
   }
 
   public static void warn(String fmt, Object ... args) {
-    if (warnFn != null) {
-      warnFn.accept(fmt, args);
+    BiConsumer<String, Object[]> fn = warnFn;
+    if (fn != null) {
+      log(fn, fmt, args);
     }
   }
 
@@ -1,7 +1,10 @@
 package io.rqlite.jdbc;
 
+import io.rqlite.client.L4Call;
 import io.rqlite.client.L4Client;
 import io.rqlite.client.L4Statement;
+import io.rqlite.json.Json;
+import io.rqlite.json.JsonStream;
 
 import java.io.*;
 import java.math.BigDecimal;
@@ -45,14 +48,24 @@ public class L4Ps extends L4St implements PreparedStatement {
     return baos.toByteArray();
   }
 
-  private static String readAllCharsCompat(Reader reader) throws IOException {
-    StringWriter writer = new StringWriter();
-    char[] buf = new char[4096];
-    int n;
-    while ((n = reader.read(buf)) != -1) {
-      writer.write(buf, 0, n);
+  /** Binds a byte stream that is Base64 encoded into the request body when the statement is sent. */
+  private void bindBytes(int parameterIndex, InputStream in, long length) {
+    statement.withPositionalParam(parameterIndex - 1, Json.stream(in, length));
+  }
+
+  /** Binds a character stream that is escaped into the request body when the statement is sent. */
+  private void bindChars(int parameterIndex, Reader reader, long length) {
+    statement.withPositionalParam(parameterIndex - 1, Json.stream(reader, length));
+  }
+
+  /** Stream parameters are read as the statement is sent, so each execution needs them set again. */
+  private void checkStreams() throws SQLException {
+    for (int i = 0; i < statement.positionalParams.size(); i++) {
+      Object p = statement.positionalParams.get(i);
+      if (p instanceof JsonStream && ((JsonStream) p).isConsumed()) {
+        throw badParam(String.format("Stream parameter %d was already sent, set it again before executing", i + 1));
+      }
     }
-    return writer.toString();
   }
 
   public L4Ps(L4Client client, L4Conn conn, String sql) throws SQLException {
@@ -75,11 +88,14 @@ public class L4Ps extends L4St implements PreparedStatement {
 
   private void executeInternal() throws SQLException {
     checkClosed();
+    checkStreams();
     closeCurrentResultSet();
     currentResultIndex = -1;
     try {
       boolean isSelect = isSelect(statement.sql);
-      currentResponse = isSelect ? client.query(statement) : client.execute(isAutoCommit(), statement);
+      currentStatements = new L4Statement[] {statement};
+      L4Call call = newCall();
+      currentResponse = isSelect ? client.query(call, statement) : client.execute(call, isAutoCommit(), statement);
       io.rqlite.client.L4Result result = checkResult(currentResponse.first());
       currentResultIndex = 0;
       resultSetAvailable = isSelect && result.columns != null && !result.columns.isEmpty();
@@ -90,7 +106,7 @@ public class L4Ps extends L4St implements PreparedStatement {
         }
       }
     } catch (Exception e) {
-      throw badExec(e);
+      throw failed(e, badExec(e));
     }
   }
 
@@ -134,7 +150,8 @@ public class L4Ps extends L4St implements PreparedStatement {
       return new int[0];
     }
     try {
-      currentResponse = client.execute(isAutoCommit(), batch.toArray(new L4Statement[0]));
+      currentStatements = batch.toArray(new L4Statement[0]);
+      currentResponse = client.execute(newCall(), isAutoCommit(), currentStatements);
       batch.clear();
       int[] updateCounts = new int[currentResponse.results.size()];
       for (int i = 0; i < currentResponse.results.size(); i++) {
@@ -149,7 +166,11 @@ public class L4Ps extends L4St implements PreparedStatement {
       int[] counts = new int[batch.size()];
       Arrays.fill(counts, EXECUTE_FAILED);
       batch.clear();
-      throw new BatchUpdateException("Batch execution failed", SqlStateConnectionError, 0, counts, e);
+      SQLException aborted = failed(e, null);
+      throw new BatchUpdateException(
+        aborted != null ? aborted.getMessage() : "Batch execution failed",
+        aborted != null ? aborted.getSQLState() : SqlStateConnectionError, 0, counts, e
+      );
     }
   }
 
@@ -276,12 +297,7 @@ public class L4Ps extends L4St implements PreparedStatement {
       setNull(parameterIndex, Types.BLOB);
       return;
     }
-    try {
-      byte[] bytes = readNBytesCompat(x, length);
-      statement.withPositionalParam(parameterIndex - 1, Base64.getEncoder().encodeToString(bytes));
-    } catch (IOException e) {
-      throw badParam(e);
-    }
+    bindBytes(parameterIndex, x, length);
   }
 
   @Override public void clearParameters() throws SQLException {
@@ -305,17 +321,7 @@ public class L4Ps extends L4St implements PreparedStatement {
       setNull(parameterIndex, Types.VARCHAR);
       return;
     }
-    try {
-      char[] chars = new char[length];
-      int read = reader.read(chars);
-      if (read == -1) {
-        setNull(parameterIndex, Types.VARCHAR);
-      } else {
-        statement.withPositionalParam(parameterIndex - 1, new String(chars, 0, read));
-      }
-    } catch (IOException e) {
-      throw badParam(e);
-    }
+    bindChars(parameterIndex, reader, length);
   }
 
   @Override public void setRef(int parameterIndex, Ref x) throws SQLException {
@@ -329,12 +335,7 @@ public class L4Ps extends L4St implements PreparedStatement {
       setNull(parameterIndex, Types.BLOB);
       return;
     }
-    try {
-      byte[] bytes = x.getBytes(1, (int) x.length());
-      statement.withPositionalParam(parameterIndex - 1, Base64.getEncoder().encodeToString(bytes));
-    } catch (SQLException e) {
-      throw badParam(e);
-    }
+    bindBytes(parameterIndex, x.getBinaryStream(), x.length());
   }
 
   @Override public void setClob(int parameterIndex, Clob x) throws SQLException {
@@ -343,12 +344,7 @@ public class L4Ps extends L4St implements PreparedStatement {
       setNull(parameterIndex, Types.CLOB);
       return;
     }
-    try {
-      String chars = x.getSubString(1, (int) x.length());
-      statement.withPositionalParam(parameterIndex - 1, chars);
-    } catch (SQLException e) {
-      throw badParam(e);
-    }
+    bindChars(parameterIndex, x.getCharacterStream(), x.length());
   }
 
   @Override public void setArray(int parameterIndex, Array x) throws SQLException {
@@ -425,17 +421,7 @@ public class L4Ps extends L4St implements PreparedStatement {
       setNull(parameterIndex, Types.NVARCHAR);
       return;
     }
-    try {
-      char[] chars = new char[(int) length];
-      int read = value.read(chars);
-      if (read == -1) {
-        setNull(parameterIndex, Types.NVARCHAR);
-      } else {
-        statement.withPositionalParam(parameterIndex - 1, new String(chars, 0, read));
-      }
-    } catch (IOException e) {
-      throw badParam(e);
-    }
+    bindChars(parameterIndex, value, length);
   }
 
   @Override public void setNClob(int parameterIndex, NClob value) throws SQLException {
@@ -444,12 +430,7 @@ public class L4Ps extends L4St implements PreparedStatement {
       setNull(parameterIndex, Types.NCLOB);
       return;
     }
-    try {
-      String chars = value.getSubString(1, (int) value.length());
-      statement.withPositionalParam(parameterIndex - 1, chars);
-    } catch (SQLException e) {
-      throw badParam(e);
-    }
+    bindChars(parameterIndex, value.getCharacterStream(), value.length());
   }
 
   @Override public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
@@ -458,17 +439,7 @@ public class L4Ps extends L4St implements PreparedStatement {
       setNull(parameterIndex, Types.CLOB);
       return;
     }
-    try {
-      char[] chars = new char[(int) length];
-      int read = reader.read(chars);
-      if (read == -1) {
-        setNull(parameterIndex, Types.CLOB);
-      } else {
-        statement.withPositionalParam(parameterIndex - 1, new String(chars, 0, read));
-      }
-    } catch (IOException e) {
-      throw badParam(e);
-    }
+    bindChars(parameterIndex, reader, length);
   }
 
   @Override public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
@@ -477,12 +448,7 @@ public class L4Ps extends L4St implements PreparedStatement {
       setNull(parameterIndex, Types.BLOB);
       return;
     }
-    try {
-      byte[] bytes = readNBytesCompat(inputStream, (int) length);
-      statement.withPositionalParam(parameterIndex - 1, Base64.getEncoder().encodeToString(bytes));
-    } catch (IOException e) {
-      throw badParam(e);
-    }
+    bindBytes(parameterIndex, inputStream, length);
   }
 
   @Override public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
@@ -491,17 +457,7 @@ public class L4Ps extends L4St implements PreparedStatement {
       setNull(parameterIndex, Types.NCLOB);
       return;
     }
-    try {
-      char[] chars = new char[(int) length];
-      int read = reader.read(chars);
-      if (read == -1) {
-        setNull(parameterIndex, Types.NCLOB);
-      } else {
-        statement.withPositionalParam(parameterIndex - 1, new String(chars, 0, read));
-      }
-    } catch (IOException e) {
-      throw badParam(e);
-    }
+    bindChars(parameterIndex, reader, length);
   }
 
   @Override public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
@@ -538,12 +494,7 @@ public class L4Ps extends L4St implements PreparedStatement {
       setNull(parameterIndex, Types.BLOB);
       return;
     }
-    try {
-      byte[] bytes = readNBytesCompat(x, (int) length);
-      statement.withPositionalParam(parameterIndex - 1, Base64.getEncoder().encodeToString(bytes));
-    } catch (IOException e) {
-      throw badParam(e);
-    }
+    bindBytes(parameterIndex, x, length);
   }
 
   @Override public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
@@ -552,17 +503,7 @@ public class L4Ps extends L4St implements PreparedStatement {
       setNull(parameterIndex, Types.VARCHAR);
       return;
     }
-    try {
-      char[] chars = new char[(int) length];
-      int read = reader.read(chars);
-      if (read == -1) {
-        setNull(parameterIndex, Types.VARCHAR);
-      } else {
-        statement.withPositionalParam(parameterIndex - 1, new String(chars, 0, read));
-      }
-    } catch (IOException e) {
-      throw badParam(e);
-    }
+    bindChars(parameterIndex, reader, length);
   }
 
   @Override public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
@@ -585,12 +526,7 @@ public class L4Ps extends L4St implements PreparedStatement {
       setNull(parameterIndex, Types.BLOB);
       return;
     }
-    try {
-      byte[] bytes = readAllBytesCompat(x);
-      statement.withPositionalParam(parameterIndex - 1, Base64.getEncoder().encodeToString(bytes));
-    } catch (IOException e) {
-      throw badParam(e);
-    }
+    bindBytes(parameterIndex, x, -1);
   }
 
   @Override public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
@@ -599,12 +535,7 @@ public class L4Ps extends L4St implements PreparedStatement {
       setNull(parameterIndex, Types.VARCHAR);
       return;
     }
-    try {
-      String s = readAllCharsCompat(reader);
-      statement.withPositionalParam(parameterIndex - 1, s);
-    } catch (IOException e) {
-      throw badParam(e);
-    }
+    bindChars(parameterIndex, reader, -1);
   }
 
   @Override public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
@@ -613,12 +544,7 @@ public class L4Ps extends L4St implements PreparedStatement {
       setNull(parameterIndex, Types.NVARCHAR);
       return;
     }
-    try {
-      String s = readAllCharsCompat(value);
-      statement.withPositionalParam(parameterIndex - 1, s);
-    } catch (IOException e) {
-      throw badParam(e);
-    }
+    bindChars(parameterIndex, value, -1);
   }
 
   @Override public void setClob(int parameterIndex, Reader reader) throws SQLException {
@@ -627,12 +553,7 @@ public class L4Ps extends L4St implements PreparedStatement {
       setNull(parameterIndex, Types.CLOB);
       return;
     }
-    try {
-      String s = readAllCharsCompat(reader);
-      statement.withPositionalParam(parameterIndex - 1, s);
-    } catch (IOException e) {
-      throw badParam(e);
-    }
+    bindChars(parameterIndex, reader, -1);
   }
 
   @Override public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
@@ -641,12 +562,7 @@ public class L4Ps extends L4St implements PreparedStatement {
       setNull(parameterIndex, Types.BLOB);
       return;
     }
-    try {
-      byte[] bytes = readAllBytesCompat(inputStream);
-      statement.withPositionalParam(parameterIndex - 1, Base64.getEncoder().encodeToString(bytes));
-    } catch (IOException e) {
-      throw badParam(e);
-    }
+    bindBytes(parameterIndex, inputStream, -1);
   }
 
   @Override public void setNClob(int parameterIndex, Reader reader) throws SQLException {
@@ -655,12 +571,7 @@ public class L4Ps extends L4St implements PreparedStatement {
       setNull(parameterIndex, Types.NCLOB);
       return;
     }
-    try {
-      String s = readAllCharsCompat(reader);
-      statement.withPositionalParam(parameterIndex - 1, s);
-    } catch (IOException e) {
-      throw badParam(e);
-    }
+    bindChars(parameterIndex, reader, -1);
   }
 
   @Override public ResultSet executeQuery(String sql) throws SQLException {
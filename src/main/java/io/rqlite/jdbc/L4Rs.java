@@ -1,5 +1,6 @@
 package io.rqlite.jdbc;
 
+import io.rqlite.client.L4Events;
 import io.rqlite.client.L4Result;
 import java.io.*;
 import java.math.BigDecimal;
@@ -17,6 +18,7 @@ public class L4Rs implements ResultSet {
   public  final L4Result result;
   private final L4RsMeta meta;
   private final Statement statement;
+  private final Object event = L4Events.beginResultSet();
   private int currentRow = -1; // Before first row
   private boolean isClosed = false;
   private boolean wasNull = false;
@@ -53,6 +55,7 @@ public class L4Rs implements ResultSet {
   @Override public void close() throws SQLException {
     if (!isClosed) {
       isClosed = true;
+      L4Events.endResultSet(event, result, Math.min(currentRow + 1, result.values.size()));
       if (statement instanceof L4St) {
         if (statement.isCloseOnCompletion()) {
           statement.close();
@@ -474,13 +477,7 @@ public class L4Rs implements ResultSet {
   }
 
   @Override public Blob getBlob(int columnIndex) throws SQLException {
-    byte[] bytes = (byte[]) tryCast(columnIndex, Types.BLOB);
-    if (bytes == null) {
-      return null;
-    }
-    L4Blob blob = new L4Blob();
-    blob.setBytes(1, bytes);
-    return blob;
+    return (Blob) tryCast(columnIndex, BLOB_STREAM);
   }
 
   @Override public Clob getClob(int columnIndex) throws SQLException {
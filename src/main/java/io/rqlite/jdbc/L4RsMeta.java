@@ -125,8 +125,7 @@ public class L4RsMeta implements ResultSetMetaData {
     if (type == null) {
       return Types.NULL; // Handle NULL columns or missing type info
     }
-    String typeUpper = type.toUpperCase();
-    int jt = getJdbcType(typeUpper);
+    int jt = getJdbcType(type);
     if (jt == -1) {
       throw badRqLiteColumn(column, type);
     }
@@ -0,0 +1,41 @@
+package io.rqlite.jdbc;
+
+import io.rqlite.client.L4TxMark;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+import static java.lang.String.format;
+import static io.rqlite.jdbc.L4Err.*;
+
+/** A savepoint, emulated as a position in the connection's buffered transaction. */
+public class L4Sp implements Savepoint {
+
+  protected final int      id;
+  protected final String   name;
+  protected final L4TxMark mark;
+
+  public L4Sp(int id, String name, L4TxMark mark) {
+    this.id = id;
+    this.name = name;
+    this.mark = mark;
+  }
+
+  @Override public int getSavepointId() throws SQLException {
+    if (name != null) {
+      throw badState(format("Savepoint [%s] is named", name));
+    }
+    return id;
+  }
+
+  @Override public String getSavepointName() throws SQLException {
+    if (name == null) {
+      throw badState(format("Savepoint [%d] is not named", id));
+    }
+    return name;
+  }
+
+  @Override public String toString() {
+    return format("sp [%s, %s]", name != null ? name : id, mark);
+  }
+
+}
@@ -1,9 +1,12 @@
 package io.rqlite.jdbc;
 
+import io.rqlite.client.L4Call;
 import io.rqlite.client.L4Client;
+import io.rqlite.client.L4Level;
 import io.rqlite.client.L4Response;
 import io.rqlite.client.L4Statement;
 import io.rqlite.client.L4Result;
+import io.rqlite.json.JsonObject;
 
 import java.sql.*;
 import java.util.*;
@@ -25,6 +28,11 @@ public class L4St implements Statement {
   protected int         fetchSize = 0;
   protected boolean     closeOnCompletion = false;
   protected int         currentResultIndex = -1;
+  protected L4Statement[] currentStatements = null; // sent to produce currentResponse, for generated keys
+  protected int         queryTimeoutSec = 0;
+  protected L4Level     level = null; // read consistency for this statement, null uses L4Options.level
+  protected String      freshness = null;
+  protected volatile L4Call currentCall = null; // in-flight (or last) request, for cancel()
 
   public L4St(L4Client client, L4Conn conn) {
     this.client = Objects.requireNonNull(client);
@@ -52,10 +60,51 @@ public class L4St implements Statement {
     currentResultSet = null;
   }
 
+  /** Starts a request bound to this statement's query timeout, which {@link #cancel()} can abort. */
+  protected L4Call newCall() {
+    L4Call call = new L4Call(queryTimeoutSec * 1000L).level(level).freshness(freshness);
+    currentCall = call;
+    return call;
+  }
+
+  /**
+   * Overrides the read consistency level for this statement, available through
+   * <code>unwrap(L4St.class)</code>. SQL hints such as <code>/*+ level=none *&#47;</code> take precedence.
+   */
+  public L4St withLevel(L4Level level) {
+    this.level = level;
+    return this;
+  }
+
+  /** Staleness allowed for <code>none</code> level reads of this statement, a duration such as <code>1s</code>. */
+  public L4St withFreshness(String freshness) throws SQLException {
+    try {
+      new L4Call(0).freshness(freshness);
+    } catch (IllegalArgumentException e) {
+      throw badParam(e);
+    }
+    this.freshness = freshness;
+    return this;
+  }
+
+  /** A request aborted by the query timeout or {@link #cancel()} fails as such, anything else as <code>orElse</code>. */
+  protected SQLException failed(Exception e, SQLException orElse) {
+    L4Call call = currentCall;
+    if (call != null && call.isTimedOut()) {
+      return queryTimedOut(call.timeoutMs, e);
+    }
+    if (call != null && call.isCancelled()) {
+      return queryCancelled(e);
+    }
+    return orElse;
+  }
+
   private L4Response runRaw(String sql) throws SQLException {
     boolean sel = isSelect(sql);
     L4Statement[] sta = split(sql);
-    L4Response res = sel ? client.query(sta) : client.execute(isAutoCommit(), sta);
+    L4Call call = newCall();
+    L4Response res = sel ? client.query(call, sta) : client.execute(call, isAutoCommit(), sta);
+    currentStatements = sta;
     for (L4Result result : res.results) {
       checkResult(result);
     }
@@ -75,7 +124,7 @@ public class L4St implements Statement {
       currentResultSet = new L4Rs(currentResponse.first(), this).clampTo(maxRows);
       return currentResultSet;
     } catch (Exception e) {
-      throw badQuery(e);
+      throw failed(e, badQuery(e));
     }
   }
 
@@ -87,11 +136,12 @@ public class L4St implements Statement {
       throw badStatement();
     }
     try {
-      currentResponse = client.execute(isAutoCommit(), new L4Statement().sql(sql));
+      currentStatements = new L4Statement[] {new L4Statement().sql(sql)};
+      currentResponse = client.execute(newCall(), isAutoCommit(), currentStatements);
       L4Result result = checkResult(currentResponse.first());
       return result.rowsAffected != null ? result.rowsAffected : 0;
     } catch (Exception e) {
-      throw badUpdate(e);
+      throw failed(e, badUpdate(e));
     }
   }
 
@@ -101,6 +151,7 @@ public class L4St implements Statement {
       batch.clear();
       currentResultIndex = -1;
       currentResponse = null;
+      currentStatements = null;
       closeOnCompletion = false;
       isClosed = true;
     }
@@ -135,21 +186,25 @@ public class L4St implements Statement {
 
   @Override public int getQueryTimeout() throws SQLException {
     checkClosed();
-    return (int) (client.getTxTimeoutSec() == -1 ? 0 : client.getTxTimeoutSec());
+    return queryTimeoutSec;
   }
 
+  /** Applies to this statement's requests only, 0 falls back to the connection timeout. */
   @Override public void setQueryTimeout(int seconds) throws SQLException {
     checkClosed();
-    try {
-      client.withTxTimeoutSec(seconds);
-    } catch (Exception e) {
-      throw badParam(e);
+    if (seconds < 0) {
+      throw badParam(String.format("Invalid query timeout [%d]", seconds));
     }
+    this.queryTimeoutSec = seconds;
   }
 
+  /** Aborts the request in flight, if any, from another thread. The executing thread gets a HY008 error. */
   @Override public void cancel() throws SQLException {
     checkClosed();
-    throw notSupported("Statement cancellation");
+    L4Call call = currentCall;
+    if (call != null) {
+      call.cancel();
+    }
   }
 
   @Override public SQLWarning getWarnings() throws SQLException {
@@ -206,7 +261,7 @@ public class L4St implements Statement {
       currentResultSet = new L4Rs(first, this).clampTo(maxRows);
       return true;
     } catch (Exception e) {
-      throw badExec(e);
+      throw failed(e, badExec(e));
     }
   }
 
@@ -303,7 +358,8 @@ public class L4St implements Statement {
       return new int[0];
     }
     try {
-      currentResponse = client.execute(isAutoCommit(), batch.toArray(new L4Statement[0]));
+      currentStatements = batch.toArray(new L4Statement[0]);
+      currentResponse = client.execute(newCall(), isAutoCommit(), currentStatements);
       int[] updateCounts = new int[currentResponse.results.size()];
       for (int i = 0; i < currentResponse.results.size(); i++) {
         L4Result result = currentResponse.results.get(i);
@@ -315,7 +371,7 @@ public class L4St implements Statement {
       batch.clear();
       return updateCounts;
     } catch (Exception e) {
-      throw badBatch(e);
+      throw failed(e, badBatch(e));
     }
   }
 
@@ -332,14 +388,64 @@ public class L4St implements Statement {
     return getMoreResults();
   }
 
+  private static L4Result lastInsertIdKeys(L4Result keys) {
+    keys.columns.add(GeneratedKeyColumn);
+    keys.types.add(RQ_BIGINT); // rowids are 64 bit
+    return keys;
+  }
+
+  /**
+   * Keys for the statements behind a response, without another round trip: the rows of any
+   * <code>RETURNING</code> clauses if there are some, otherwise rqlite's <code>last_insert_id</code>
+   * for every INSERT/REPLACE that changed rows, one per statement (so one per batch entry).
+   * Deferred statements of an open transaction have no keys until commit.
+   */
+  protected static L4Result generatedKeys(L4Response response, L4Statement[] statements) {
+    L4Result keys = new L4Result(new JsonObject());
+    if (response == null || statements == null || response.statements != null) {
+      return lastInsertIdKeys(keys);
+    }
+    int n = Math.min(statements.length, response.results.size());
+    for (int i = 0; i < n; i++) {
+      L4Result res = response.results.get(i);
+      if (res.error == null && res.columns != null && !res.columns.isEmpty() && hasReturning(statements[i].sql)) {
+        if (keys.columns.isEmpty()) {
+          keys.columns.addAll(res.columns);
+          keys.types.addAll(res.types);
+        }
+        keys.values.addAll(res.values);
+      }
+    }
+    if (!keys.columns.isEmpty()) {
+      return keys;
+    }
+    lastInsertIdKeys(keys);
+    for (int i = 0; i < n; i++) {
+      L4Result res = response.results.get(i);
+      boolean changed = res.rowsAffected != null && res.rowsAffected > 0;
+      if (res.error == null && changed && res.lastInsertId != null && isInsert(statements[i].sql)) {
+        keys.addRow(Long.toString(res.lastInsertId));
+      }
+    }
+    return keys;
+  }
+
   @Override public ResultSet getGeneratedKeys() throws SQLException {
     checkClosed();
-    throw notSupported("Generated keys");
+    return new L4Rs(generatedKeys(currentResponse, currentStatements), this);
+  }
+
+  protected static void checkAutoGeneratedKeys(int autoGeneratedKeys) throws SQLException {
+    if (autoGeneratedKeys != RETURN_GENERATED_KEYS && autoGeneratedKeys != NO_GENERATED_KEYS) {
+      throw badParam(String.format("Invalid autoGeneratedKeys value: %d", autoGeneratedKeys));
+    }
   }
 
+  /* Keys are always available from the last response, the flag only needs to be valid. */
   @Override public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
     checkClosed();
-    throw notSupported("Update with auto-generated keys");
+    checkAutoGeneratedKeys(autoGeneratedKeys);
+    return executeUpdate(sql);
   }
 
   @Override public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
@@ -354,7 +460,8 @@ public class L4St implements Statement {
 
   @Override public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
     checkClosed();
-    throw notSupported("Execution with auto-generated keys");
+    checkAutoGeneratedKeys(autoGeneratedKeys);
+    return execute(sql);
   }
 
   @Override public boolean execute(String sql, int[] columnIndexes) throws SQLException {
@@ -0,0 +1,275 @@
+package io.rqlite.jdbc;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.time.zone.ZoneRules;
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shape-based date/time codec for the textual values rqlite hands back. Values are
+ * recognized by their layout and decoded with plain digit arithmetic, so the common
+ * cases never build a formatter or throw. Anything the fast path does not recognize
+ * returns <code>null</code>, and callers fall back to the <code>java.time</code> parsers
+ * (which also produce the error details).
+ */
+public final class L4TsCodec {
+
+  public static final DateTimeFormatter LocalTsFmt = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+  public static final DateTimeFormatter UtcTsFmt = new DateTimeFormatterBuilder()
+    .appendPattern("yyyy-MM-dd HH:mm:ss")
+    .optionalStart()
+    .appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true) // Adds .nnnnnnnnn if nanos > 0
+    .optionalEnd()
+    .toFormatter();
+
+  private static final long SecondsPerDay = 86400L, NanosPerSecond = 1_000_000_000L;
+  private static final int  MaxZones = 256;
+  private static final ConcurrentHashMap<String, ZoneId> zones = new ConcurrentHashMap<>();
+
+  private L4TsCodec() {}
+
+  public static ZoneId zoneOf(Calendar cal) {
+    TimeZone tz = cal != null ? cal.getTimeZone() : TimeZone.getDefault();
+    ZoneId zid = zones.get(tz.getID());
+    if (zid == null) {
+      zid = tz.toZoneId();
+      if (zones.size() < MaxZones) {
+        zones.putIfAbsent(tz.getID(), zid);
+      }
+    }
+    return zid;
+  }
+
+  private static int digits(String s, int off, int n) {
+    int v = 0;
+    for (int i = off; i < off + n; i++) {
+      int d = s.charAt(i) - '0';
+      if (d < 0 || d > 9) {
+        return -1;
+      }
+      v = v * 10 + d;
+    }
+    return v;
+  }
+
+  private static boolean isLeap(long year) {
+    return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+  }
+
+  private static int monthLength(int year, int month) {
+    switch (month) {
+      case 2:  return isLeap(year) ? 29 : 28;
+      case 4:
+      case 6:
+      case 9:
+      case 11: return 30;
+      default: return 31;
+    }
+  }
+
+  /** Days since 1970-01-01 for a proleptic ISO date (same arithmetic as LocalDate.toEpochDay). */
+  private static long epochDay(int year, int month, int day) {
+    long y = year;
+    long m = month;
+    long total = 365 * y;
+    if (y >= 0) {
+      total += (y + 3) / 4 - (y + 99) / 100 + (y + 399) / 400;
+    } else {
+      total -= y / -4 - y / -100 + y / -400;
+    }
+    total += ((367 * m - 362) / 12);
+    total += day - 1;
+    if (m > 2) {
+      total--;
+      if (!isLeap(year)) {
+        total--;
+      }
+    }
+    return total - 719528L; // days from year 0 to 1970
+  }
+
+  /** Parses <code>yyyy-MM-dd</code> at <code>off</code>, returning the epoch day or <code>Long.MIN_VALUE</code>. */
+  private static long dateAt(String s, int off) {
+    if (s.charAt(off + 4) != '-' || s.charAt(off + 7) != '-') {
+      return Long.MIN_VALUE;
+    }
+    int y = digits(s, off, 4), mo = digits(s, off + 5, 2), d = digits(s, off + 8, 2);
+    if (y < 0 || mo < 1 || mo > 12 || d < 1 || d > monthLength(y, mo)) {
+      return Long.MIN_VALUE;
+    }
+    return epochDay(y, mo, d);
+  }
+
+  /**
+   * Parses <code>HH:mm[:ss[.f{1,9}]]</code> from <code>off</code> up to <code>end</code>, returning
+   * the nano of day or -1.
+   */
+  private static long nanoOfDayAt(String s, int off, int end, boolean secondsRequired) {
+    int len = end - off;
+    if (len < 5 || s.charAt(off + 2) != ':') {
+      return -1;
+    }
+    int h = digits(s, off, 2), mi = digits(s, off + 3, 2), sec = 0, nanos = 0;
+    if (h < 0 || h > 23 || mi < 0 || mi > 59) {
+      return -1;
+    }
+    if (len == 5) {
+      if (secondsRequired) {
+        return -1;
+      }
+    } else {
+      if (len < 8 || s.charAt(off + 5) != ':') {
+        return -1;
+      }
+      sec = digits(s, off + 6, 2);
+      if (sec < 0 || sec > 59) {
+        return -1;
+      }
+      if (len > 8) {
+        int fd = len - 9;
+        if (s.charAt(off + 8) != '.' || fd < 1 || fd > 9) {
+          return -1;
+        }
+        nanos = digits(s, off + 9, fd);
+        if (nanos < 0) {
+          return -1;
+        }
+        for (int i = fd; i < 9; i++) {
+          nanos *= 10;
+        }
+      }
+    }
+    return (h * 3600L + mi * 60L + sec) * NanosPerSecond + nanos;
+  }
+
+  private static long epochSecondOf(long localEpochSecond, ZoneId zone) {
+    if (zone instanceof ZoneOffset) {
+      return localEpochSecond - ((ZoneOffset) zone).getTotalSeconds();
+    }
+    ZoneRules rules = zone.getRules();
+    if (rules.isFixedOffset()) {
+      return localEpochSecond - rules.getOffset(Instant.EPOCH).getTotalSeconds();
+    }
+    LocalDateTime ldt = LocalDateTime.ofEpochSecond(localEpochSecond, 0, ZoneOffset.UTC);
+    return ldt.atZone(zone).toEpochSecond(); // DST gaps/overlaps resolved as ZonedDateTime does
+  }
+
+  private static long epochMilliOf(long epochSecond, long nanos) {
+    return epochSecond * 1000L + nanos / 1000_000L;
+  }
+
+  /**
+   * Decodes <code>yyyy-MM-dd</code> (local, in the calendar's zone) or
+   * <code>yyyy-MM-ddTHH:mm:ss[.f]Z</code> (absolute).
+   */
+  public static Date parseDate(String s, Calendar cal) {
+    int len = s.length();
+    if (len == 10) {
+      long day = dateAt(s, 0);
+      return day == Long.MIN_VALUE ? null : new Date(epochSecondOf(day * SecondsPerDay, zoneOf(cal)) * 1000L);
+    }
+    if (len >= 20 && s.charAt(10) == 'T' && s.charAt(len - 1) == 'Z') {
+      long day = dateAt(s, 0);
+      long nod = day == Long.MIN_VALUE ? -1 : nanoOfDayAt(s, 11, len - 1, true);
+      if (nod < 0) {
+        return null;
+      }
+      return new Date(epochMilliOf(day * SecondsPerDay + nod / NanosPerSecond, nod % NanosPerSecond));
+    }
+    return null;
+  }
+
+  /** Decodes <code>HH:mm[:ss[.f]]</code> on the epoch day, in the calendar's zone. */
+  public static Time parseTime(String s, Calendar cal) {
+    long nod = nanoOfDayAt(s, 0, s.length(), false);
+    if (nod < 0) {
+      return null;
+    }
+    return new Time(epochMilliOf(epochSecondOf(nod / NanosPerSecond, zoneOf(cal)), nod % NanosPerSecond));
+  }
+
+  /**
+   * Decodes <code>yyyy-MM-ddTHH:mm:ss[.f]Z</code> (absolute) or
+   * <code>yyyy-MM-dd HH:mm:ss[.f]</code> (local, in the calendar's zone).
+   */
+  public static Timestamp parseTimestamp(String s, Calendar cal) {
+    int len = s.length();
+    if (len < 19) {
+      return null;
+    }
+    char sep = s.charAt(10);
+    long day = dateAt(s, 0);
+    if (day == Long.MIN_VALUE) {
+      return null;
+    }
+    long epochSecond, nod;
+    if (sep == 'T' && s.charAt(len - 1) == 'Z') {
+      if ((nod = nanoOfDayAt(s, 11, len - 1, true)) < 0) {
+        return null;
+      }
+      epochSecond = day * SecondsPerDay + nod / NanosPerSecond;
+    } else if (sep == ' ') {
+      if ((nod = nanoOfDayAt(s, 11, len, true)) < 0) {
+        return null;
+      }
+      epochSecond = epochSecondOf(day * SecondsPerDay + nod / NanosPerSecond, zoneOf(cal));
+    } else {
+      return null;
+    }
+    Timestamp ts = new Timestamp(epochSecond * 1000L);
+    ts.setNanos((int) (nod % NanosPerSecond));
+    return ts;
+  }
+
+  private static void pad(StringBuilder sb, int v, int width) {
+    for (int lim = width == 4 ? 1000 : width == 2 ? 10 : 1; lim > 1 && v < lim; lim /= 10) {
+      sb.append('0');
+    }
+    sb.append(v);
+  }
+
+  /** Formats a timestamp as UTC <code>yyyy-MM-dd HH:mm:ss[.f]</code>, trailing fraction zeros dropped. */
+  public static String format(Timestamp x) {
+    long epochSecond = Math.floorDiv(x.getTime(), 1000L);
+    int nanos = x.getNanos();
+    LocalDateTime ldt = LocalDateTime.ofEpochSecond(epochSecond, nanos, ZoneOffset.UTC);
+    int year = ldt.getYear();
+    if (year < 0 || year > 9999) {
+      return ldt.format(UtcTsFmt);
+    }
+    StringBuilder sb = new StringBuilder(29);
+    pad(sb, year, 4);
+    sb.append('-');
+    pad(sb, ldt.getMonthValue(), 2);
+    sb.append('-');
+    pad(sb, ldt.getDayOfMonth(), 2);
+    sb.append(' ');
+    pad(sb, ldt.getHour(), 2);
+    sb.append(':');
+    pad(sb, ldt.getMinute(), 2);
+    sb.append(':');
+    pad(sb, ldt.getSecond(), 2);
+    if (nanos > 0) {
+      int fd = 9;
+      while (nanos % 10 == 0) {
+        nanos /= 10;
+        fd--;
+      }
+      sb.append('.');
+      String frac = Integer.toString(nanos);
+      for (int i = frac.length(); i < fd; i++) {
+        sb.append('0');
+      }
+      sb.append(frac);
+    }
+    return sb.toString();
+  }
+
+}
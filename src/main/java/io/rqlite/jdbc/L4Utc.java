@@ -4,8 +4,6 @@ import java.sql.Date;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.time.*;
-import java.time.format.DateTimeFormatterBuilder;
-import java.time.temporal.ChronoField;
 import java.util.*;
 
 public class L4Utc {
@@ -13,40 +11,23 @@ public class L4Utc {
   public static final ZoneId UtcZid = ZoneId.of("UTC");
   public static final TimeZone UtcTz = TimeZone.getTimeZone("UTC");
 
+  private static final long MillisPerDay = 86_400_000L;
+
   public static LocalDate utcOf(Date x) {
-    Calendar calInstance = Calendar.getInstance(UtcTz);
-    calInstance.setTimeInMillis(x.getTime());
-    return LocalDate.of(
-      calInstance.get(Calendar.YEAR),
-      calInstance.get(Calendar.MONTH) + 1, // Calendar months are 0-based
-      calInstance.get(Calendar.DAY_OF_MONTH)
-    );
+    return LocalDate.ofEpochDay(Math.floorDiv(x.getTime(), MillisPerDay));
   }
 
   public static LocalTime utcOf(Time x) {
-    Calendar calInstance = Calendar.getInstance(UtcTz);
-    calInstance.setTimeInMillis(x.getTime());
-    return LocalTime.of(
-      calInstance.get(Calendar.HOUR_OF_DAY),
-      calInstance.get(Calendar.MINUTE),
-      calInstance.get(Calendar.SECOND)
-    );
+    long msOfDay = Math.floorMod(x.getTime(), MillisPerDay);
+    return LocalTime.ofSecondOfDay(msOfDay / 1000L);
   }
 
   public static LocalDateTime utcDateTimeOf(Timestamp x) {
-    Instant instant = x.toInstant();
-    ZonedDateTime zdt = instant.atZone(UtcZid);
-    return zdt.toLocalDateTime();
+    return LocalDateTime.ofEpochSecond(Math.floorDiv(x.getTime(), 1000L), x.getNanos(), ZoneOffset.UTC);
   }
 
   public static String utcFmtOf(Timestamp x) {
-    java.time.format.DateTimeFormatter formatter = new DateTimeFormatterBuilder()
-      .appendPattern("yyyy-MM-dd HH:mm:ss")
-      .optionalStart()
-      .appendFraction(ChronoField.NANO_OF_SECOND, 0, 9, true) // Adds .nnnnnnnnn if nanos > 0
-      .optionalEnd()
-      .toFormatter();
-    return utcDateTimeOf(x).format(formatter);
+    return L4TsCodec.format(x);
   }
 
 }
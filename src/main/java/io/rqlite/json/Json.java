@@ -1,6 +1,7 @@
 package io.rqlite.json;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.Reader;
 
 /**
@@ -122,6 +123,34 @@ public final class Json {
     return value ? TRUE : FALSE;
   }
 
+  /**
+   * Returns a JsonValue that writes the given byte stream as a Base64 encoded JSON string. The
+   * stream is only read when the value is written, see {@link JsonStream}.
+   *
+   * @param bytes
+   *          the byte stream to encode
+   * @param length
+   *          the maximum number of bytes to read, or a negative value to read until the end
+   * @return a JSON value that streams the given bytes
+   */
+  public static JsonStream stream(InputStream bytes, long length) {
+    return new JsonStream(bytes, length);
+  }
+
+  /**
+   * Returns a JsonValue that writes the given character stream as a JSON string. The stream is
+   * only read when the value is written, see {@link JsonStream}.
+   *
+   * @param chars
+   *          the character stream to copy
+   * @param length
+   *          the maximum number of characters to read, or a negative value to read until the end
+   * @return a JSON value that streams the given characters
+   */
+  public static JsonStream stream(Reader chars, long length) {
+    return new JsonStream(chars, length);
+  }
+
   /**
    * Creates a new empty JsonArray. This is equivalent to creating a new JsonArray using the
    * constructor.
@@ -299,6 +328,25 @@ public final class Json {
     return handler.getValue();
   }
 
+  /**
+   * Parses the given UTF-8 encoded input as JSON, without decoding it to characters first. The
+   * input must contain a valid JSON value, optionally padded with whitespace.
+   *
+   * @param utf8
+   *          the UTF-8 encoded input, must be valid JSON
+   * @return a value that represents the parsed JSON
+   * @throws ParseException
+   *           if the input is not valid JSON
+   */
+  public static JsonValue parse(byte[] utf8) {
+    if (utf8 == null) {
+      throw new NullPointerException("utf8 is null");
+    }
+    DefaultHandler handler = new DefaultHandler();
+    new JsonParser(handler).parse(utf8);
+    return handler.getValue();
+  }
+
   private static String cutOffPointZero(String string) {
     if (string.endsWith(".0")) {
       return string.substring(0, string.length() - 2);
@@ -340,6 +388,11 @@ public final class Json {
       value = new JsonNumber(string);
     }
 
+    @Override
+    public void endNumber(long number) {
+      value = new JsonNumber(number);
+    }
+
     @Override
     public void endArray(JsonArray array) {
       value = array;
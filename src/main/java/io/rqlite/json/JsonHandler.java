@@ -81,6 +81,19 @@ public abstract class JsonHandler<A, O> {
   public void startString() {
   }
 
+  /**
+   * Returns whether the string that is about to be read is a short name likely to repeat across
+   * inputs, like a column or type name. The byte input methods of {@link JsonParser} serve such
+   * strings (and all object member names) from a bounded table of shared instances instead of
+   * allocating a new string each time. This method will be called right after
+   * {@link #startString()}.
+   *
+   * @return <code>true</code> to share the next string value
+   */
+  public boolean isSymbol() {
+    return false;
+  }
+
   /**
    * Indicates the end of a string in the JSON input. This method will be called after reading the
    * closing double quote character (<code>'&quot;'</code>).
@@ -108,6 +121,19 @@ public abstract class JsonHandler<A, O> {
   public void endNumber(String string) {
   }
 
+  /**
+   * Indicates the end of an integral number that fits in a <code>long</code>. Only the byte input
+   * methods of {@link JsonParser} decode numbers in place and call this method, instead of
+   * {@link #endNumber(String)}. The default implementation passes the decimal string of the value
+   * on to {@link #endNumber(String)}, so handlers only need to override it to skip that step.
+   *
+   * @param value
+   *          the parsed number
+   */
+  public void endNumber(long value) {
+    endNumber(Long.toString(value));
+  }
+
   /**
    * Indicates the beginning of an array in the JSON input. This method will be called when reading
    * the opening square bracket character (<code>'['</code>).
@@ -5,23 +5,36 @@ import java.io.IOException;
 @SuppressWarnings("serial") // use default serial UID
 class JsonNumber extends JsonValue {
 
-  private final String string;
+  private String string;
+  private final long value;
+  private final boolean integral;
 
   JsonNumber(String string) {
     if (string == null) {
       throw new NullPointerException("string is null");
     }
     this.string = string;
+    this.value = 0;
+    this.integral = false;
+  }
+
+  /* Numbers decoded in place by the byte parser; the string is only built when needed. */
+  JsonNumber(long value) {
+    this.value = value;
+    this.integral = true;
   }
 
   @Override
   public String toString() {
+    if (string == null) {
+      string = Long.toString(value);
+    }
     return string;
   }
 
   @Override
   void write(JsonWriter writer) throws IOException {
-    writer.writeNumber(string);
+    writer.writeNumber(toString());
   }
 
   @Override
@@ -31,27 +44,30 @@ class JsonNumber extends JsonValue {
 
   @Override
   public int asInt() {
-    return Integer.parseInt(string, 10);
+    if (integral && value == (int)value) {
+      return (int)value;
+    }
+    return Integer.parseInt(toString(), 10);
   }
 
   @Override
   public long asLong() {
-    return Long.parseLong(string, 10);
+    return integral ? value : Long.parseLong(string, 10);
   }
 
   @Override
   public float asFloat() {
-    return Float.parseFloat(string);
+    return integral ? (float)value : Float.parseFloat(string);
   }
 
   @Override
   public double asDouble() {
-    return Double.parseDouble(string);
+    return integral ? (double)value : Double.parseDouble(string);
   }
 
   @Override
   public int hashCode() {
-    return string.hashCode();
+    return toString().hashCode();
   }
 
   @Override
@@ -66,7 +82,7 @@ class JsonNumber extends JsonValue {
       return false;
     }
     JsonNumber other = (JsonNumber)object;
-    return string.equals(other.string);
+    return toString().equals(other.toString());
   }
 
 }
@@ -3,6 +3,7 @@ package io.rqlite.json;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
 
 /**
  * A streaming parser for JSON text. The parser reports all events to a given handler.
@@ -25,6 +26,7 @@ public class JsonParser {
   private StringBuilder captureBuffer;
   private int captureStart;
   private int nestingLevel;
+  private Utf8Parser utf8;
 
   /*
    * |                      bufferOffset
@@ -116,6 +118,7 @@ public class JsonParser {
     if (buffersize <= 0) {
       throw new IllegalArgumentException("buffersize is zero or negative");
     }
+    utf8 = null;
     this.reader = reader;
     buffer = new char[buffersize];
     bufferOffset = 0;
@@ -134,6 +137,74 @@ public class JsonParser {
     }
   }
 
+  /**
+   * Parses the given UTF-8 encoded input. The input must contain a valid JSON value, optionally
+   * padded with whitespace.
+   * <p>
+   * The bytes are parsed in place, without decoding them to characters first. Integral numbers
+   * that fit in a <code>long</code> are reported through {@link JsonHandler#endNumber(long)}, and
+   * parser locations are byte offsets into the input.
+   * </p>
+   *
+   * @param utf8
+   *          the UTF-8 encoded input, must be valid JSON
+   * @throws ParseException
+   *           if the input is not valid JSON
+   */
+  public void parse(byte[] utf8) {
+    if (utf8 == null) {
+      throw new NullPointerException("utf8 is null");
+    }
+    parse(utf8, 0, utf8.length);
+  }
+
+  /**
+   * Parses a range of the given UTF-8 encoded input, see {@link #parse(byte[])}.
+   *
+   * @param utf8
+   *          the UTF-8 encoded input
+   * @param offset
+   *          the index of the first byte to parse
+   * @param length
+   *          the number of bytes to parse
+   * @throws ParseException
+   *           if the input is not valid JSON
+   */
+  public void parse(byte[] utf8, int offset, int length) {
+    if (utf8 == null) {
+      throw new NullPointerException("utf8 is null");
+    }
+    if (offset < 0 || length < 0 || length > utf8.length - offset) {
+      throw new IndexOutOfBoundsException("offset " + offset + ", length " + length);
+    }
+    this.utf8 = new Utf8Parser(handler, utf8, offset, length);
+    nestingLevel = 0;
+    this.utf8.parse();
+  }
+
+  /**
+   * Parses the remaining bytes of the given UTF-8 encoded buffer, see {@link #parse(byte[])}. Heap
+   * buffers are parsed in place, direct buffers are copied first. The buffer position is not
+   * changed.
+   *
+   * @param utf8
+   *          the UTF-8 encoded input
+   * @throws ParseException
+   *           if the input is not valid JSON
+   */
+  public void parse(ByteBuffer utf8) {
+    if (utf8 == null) {
+      throw new NullPointerException("utf8 is null");
+    }
+    if (utf8.hasArray()) {
+      parse(utf8.array(), utf8.arrayOffset() + utf8.position(), utf8.remaining());
+    } else {
+      byte[] bytes = new byte[utf8.remaining()];
+      utf8.duplicate().get(bytes);
+      parse(bytes, 0, bytes.length);
+    }
+  }
+
   private void readValue() throws IOException {
     switch (current) {
       case 'n':
@@ -452,6 +523,9 @@ public class JsonParser {
   }
 
   Location getLocation() {
+    if (utf8 != null) {
+      return utf8.getLocation();
+    }
     int offset = bufferOffset + index - 1;
     int column = offset - lineOffset + 1;
     return new Location(offset, line, column);
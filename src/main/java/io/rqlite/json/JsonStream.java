@@ -0,0 +1,172 @@
+package io.rqlite.json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Represents a JSON string whose content is pulled from a stream only when the value is written.
+ * Character streams are escaped as they are copied; byte streams are Base64 encoded on the fly.
+ * The underlying stream is consumed by the first write, so a stream value can be written once.
+ */
+@SuppressWarnings("serial") // use default serial UID
+public class JsonStream extends JsonValue {
+
+  private static final int BYTE_CHUNK = 3 * 4096; // multiple of 3, so only the last chunk is padded
+  private static final int CHAR_CHUNK = 8192;
+
+  private final transient InputStream bytes;
+  private final transient Reader chars;
+  private final long length;
+  private boolean consumed;
+
+  JsonStream(InputStream bytes, long length) {
+    if (bytes == null) {
+      throw new NullPointerException("bytes is null");
+    }
+    this.bytes = bytes;
+    this.chars = null;
+    this.length = length;
+  }
+
+  JsonStream(Reader chars, long length) {
+    if (chars == null) {
+      throw new NullPointerException("chars is null");
+    }
+    this.bytes = null;
+    this.chars = chars;
+    this.length = length;
+  }
+
+  /**
+   * Returns whether this value streams binary content (written as Base64) rather than characters.
+   *
+   * @return <code>true</code> for byte streams
+   */
+  public boolean isBinary() {
+    return bytes != null;
+  }
+
+  /**
+   * Returns the maximum number of bytes or characters taken from the stream.
+   *
+   * @return the length limit, or a negative value to read the stream until its end
+   */
+  public long getLength() {
+    return length;
+  }
+
+  /**
+   * Returns whether the stream was already taken by a write or {@link #detach()}.
+   *
+   * @return <code>true</code> once the value can no longer be written
+   */
+  public boolean isConsumed() {
+    return consumed;
+  }
+
+  private long remaining(long done) {
+    return length < 0 ? Long.MAX_VALUE : length - done;
+  }
+
+  private int fill(byte[] buffer, long done) throws IOException {
+    int fill = 0;
+    int limit = (int) Math.min(buffer.length, remaining(done));
+    while (fill < limit) {
+      int n = bytes.read(buffer, fill, limit - fill);
+      if (n == -1) {
+        break;
+      }
+      fill += n;
+    }
+    return fill;
+  }
+
+  @Override
+  void write(JsonWriter writer) throws IOException {
+    if (consumed) {
+      throw new IllegalStateException("Stream value already written");
+    }
+    consumed = true;
+    writer.writeStreamOpen();
+    long done = 0;
+    if (bytes != null) {
+      Base64.Encoder encoder = Base64.getEncoder();
+      byte[] buffer = new byte[BYTE_CHUNK];
+      byte[] encoded = new byte[BYTE_CHUNK / 3 * 4];
+      char[] out = new char[encoded.length];
+      int n;
+      while ((n = fill(buffer, done)) > 0) {
+        int k = encoder.encode(n == buffer.length ? buffer : Arrays.copyOf(buffer, n), encoded);
+        for (int i = 0; i < k; i++) {
+          out[i] = (char)encoded[i];
+        }
+        writer.writeRawChars(out, 0, k);
+        done += n;
+        if (n < buffer.length) {
+          break;
+        }
+      }
+    } else {
+      char[] buffer = new char[CHAR_CHUNK];
+      int n;
+      while (remaining(done) > 0
+          && (n = chars.read(buffer, 0, (int) Math.min(buffer.length, remaining(done)))) != -1) {
+        writer.writeJsonChars(buffer, 0, n);
+        done += n;
+      }
+    }
+    writer.writeStreamClose();
+  }
+
+  /**
+   * Reads the stream into a regular JSON string value. Use this when the value has to outlive the
+   * stream it was created from.
+   *
+   * @return a JSON string with the same content as this value
+   */
+  public JsonValue detach() {
+    if (consumed) {
+      throw new IllegalStateException("Stream value already written");
+    }
+    consumed = true;
+    long done = 0;
+    try {
+      if (bytes != null) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BYTE_CHUNK];
+        int n;
+        while ((n = fill(buffer, done)) > 0) {
+          out.write(buffer, 0, n);
+          done += n;
+        }
+        return new JsonString(Base64.getEncoder().encodeToString(out.toByteArray()));
+      }
+      StringBuilder out = new StringBuilder();
+      char[] buffer = new char[CHAR_CHUNK];
+      int n;
+      while (remaining(done) > 0
+          && (n = chars.read(buffer, 0, (int) Math.min(buffer.length, remaining(done)))) != -1) {
+        out.append(buffer, 0, n);
+        done += n;
+      }
+      return new JsonString(out.toString());
+    } catch (IOException exception) {
+      throw new IllegalStateException(exception);
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return System.identityHashCode(this);
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    return this == object;
+  }
+
+}
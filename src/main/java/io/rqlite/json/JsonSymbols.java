@@ -0,0 +1,59 @@
+package io.rqlite.json;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A bounded table of shared strings for short ASCII names that repeat across inputs, like object
+ * member names and rqlite column/type names. The table is split into small buckets indexed by
+ * hash; when a bucket is full its last slot is overwritten, so the table never grows. Entries are immutable strings, so unsynchronized reads and
+ * writes from several parser threads are safe; a lost update only costs an extra allocation.
+ */
+final class JsonSymbols {
+
+  static final int MAX_LENGTH = 48;
+
+  private static final int BUCKET = 4;
+  private static final int BUCKETS = 512; // power of two
+  private static final String[] table = new String[BUCKETS * BUCKET];
+
+  private JsonSymbols() {}
+
+  /** Returns the shared string for the given ASCII bytes, adding it to the table if needed. */
+  static String lookup(byte[] buffer, int from, int to) {
+    int hash = 0;
+    for (int i = from; i < to; i++) {
+      hash = 31 * hash + buffer[i];
+    }
+    int base = ((hash * 0x9E3779B9) >>> 23 & BUCKETS - 1) * BUCKET;
+    int slot = base;
+    for (; slot < base + BUCKET - 1; slot++) {
+      String symbol = table[slot];
+      if (symbol == null) {
+        break;
+      }
+      if (matches(symbol, buffer, from, to)) {
+        return symbol;
+      }
+    }
+    String symbol = table[slot];
+    if (symbol != null && matches(symbol, buffer, from, to)) {
+      return symbol;
+    }
+    symbol = new String(buffer, from, to - from, StandardCharsets.ISO_8859_1);
+    table[slot] = symbol;
+    return symbol;
+  }
+
+  private static boolean matches(String symbol, byte[] buffer, int from, int to) {
+    if (symbol.length() != to - from) {
+      return false;
+    }
+    for (int i = from; i < to; i++) {
+      if (symbol.charAt(i - from) != buffer[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
@@ -87,6 +87,32 @@ class JsonWriter {
     writer.write(string, start, length - start);
   }
 
+  protected void writeJsonChars(char[] chars, int offset, int length) throws IOException {
+    int start = offset;
+    int end = offset + length;
+    for (int index = offset; index < end; index++) {
+      char[] replacement = getReplacementChars(chars[index]);
+      if (replacement != null) {
+        writer.write(chars, start, index - start);
+        writer.write(replacement);
+        start = index + 1;
+      }
+    }
+    writer.write(chars, start, end - start);
+  }
+
+  protected void writeStreamOpen() throws IOException {
+    writer.write('"');
+  }
+
+  protected void writeStreamClose() throws IOException {
+    writer.write('"');
+  }
+
+  protected void writeRawChars(char[] chars, int offset, int length) throws IOException {
+    writer.write(chars, offset, length);
+  }
+
   private static char[] getReplacementChars(char ch) {
     if (ch > '\\') {
       if (ch < '\u2028' || ch > '\u2029') {
@@ -0,0 +1,405 @@
+package io.rqlite.json;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The byte input side of {@link JsonParser}. Reads UTF-8 encoded JSON straight from a byte array,
+ * without decoding the input to chars first. Plain ASCII strings and numbers are materialized
+ * directly from the input bytes (member names and other strings the handler marks as symbols are
+ * shared through {@link JsonSymbols}), and integral numbers that fit in a <code>long</code> are decoded
+ * in place and reported through {@link JsonHandler#endNumber(long)}.
+ * <p>
+ * Locations reported by this parser are byte offsets into the input.
+ * </p>
+ */
+final class Utf8Parser {
+
+  private static final int MAX_NESTING_LEVEL = 1000;
+  private static final int MAX_LONG_DIGITS = 18; // any 18 digit number fits in a long
+
+  private final JsonHandler<Object, Object> handler;
+  private final byte[] buffer;
+  private final int start;
+  private final int end;
+  private int pos;
+  private int nestingLevel;
+  private StringBuilder captureBuffer;
+
+  Utf8Parser(JsonHandler<Object, Object> handler, byte[] buffer, int offset, int length) {
+    this.handler = handler;
+    this.buffer = buffer;
+    this.start = offset;
+    this.end = offset + length;
+    this.pos = offset;
+  }
+
+  void parse() {
+    skipWhiteSpace();
+    readValue();
+    skipWhiteSpace();
+    if (pos < end) {
+      throw error("Unexpected character");
+    }
+  }
+
+  private int current() {
+    return pos < end ? buffer[pos] & 0xff : -1;
+  }
+
+  private void readValue() {
+    switch (current()) {
+      case 'n':
+        readNull();
+        break;
+      case 't':
+        readTrue();
+        break;
+      case 'f':
+        readFalse();
+        break;
+      case '"':
+        readString();
+        break;
+      case '[':
+        readArray();
+        break;
+      case '{':
+        readObject();
+        break;
+      case '-':
+      case '0':
+      case '1':
+      case '2':
+      case '3':
+      case '4':
+      case '5':
+      case '6':
+      case '7':
+      case '8':
+      case '9':
+        readNumber();
+        break;
+      default:
+        throw expected("value");
+    }
+  }
+
+  private void readArray() {
+    Object array = handler.startArray();
+    pos++;
+    if (++nestingLevel > MAX_NESTING_LEVEL) {
+      throw error("Nesting too deep");
+    }
+    skipWhiteSpace();
+    if (readChar(']')) {
+      nestingLevel--;
+      handler.endArray(array);
+      return;
+    }
+    do {
+      skipWhiteSpace();
+      handler.startArrayValue(array);
+      readValue();
+      handler.endArrayValue(array);
+      skipWhiteSpace();
+    } while (readChar(','));
+    if (!readChar(']')) {
+      throw expected("',' or ']'");
+    }
+    nestingLevel--;
+    handler.endArray(array);
+  }
+
+  private void readObject() {
+    Object object = handler.startObject();
+    pos++;
+    if (++nestingLevel > MAX_NESTING_LEVEL) {
+      throw error("Nesting too deep");
+    }
+    skipWhiteSpace();
+    if (readChar('}')) {
+      nestingLevel--;
+      handler.endObject(object);
+      return;
+    }
+    do {
+      skipWhiteSpace();
+      handler.startObjectName(object);
+      if (current() != '"') {
+        throw expected("name");
+      }
+      String name = readStringInternal(true);
+      handler.endObjectName(object, name);
+      skipWhiteSpace();
+      if (!readChar(':')) {
+        throw expected("':'");
+      }
+      skipWhiteSpace();
+      handler.startObjectValue(object, name);
+      readValue();
+      handler.endObjectValue(object, name);
+      skipWhiteSpace();
+    } while (readChar(','));
+    if (!readChar('}')) {
+      throw expected("',' or '}'");
+    }
+    nestingLevel--;
+    handler.endObject(object);
+  }
+
+  private void readNull() {
+    handler.startNull();
+    pos++;
+    readRequiredChar('u');
+    readRequiredChar('l');
+    readRequiredChar('l');
+    handler.endNull();
+  }
+
+  private void readTrue() {
+    handler.startBoolean();
+    pos++;
+    readRequiredChar('r');
+    readRequiredChar('u');
+    readRequiredChar('e');
+    handler.endBoolean(true);
+  }
+
+  private void readFalse() {
+    handler.startBoolean();
+    pos++;
+    readRequiredChar('a');
+    readRequiredChar('l');
+    readRequiredChar('s');
+    readRequiredChar('e');
+    handler.endBoolean(false);
+  }
+
+  private void readRequiredChar(char ch) {
+    if (!readChar(ch)) {
+      throw expected("'" + ch + "'");
+    }
+  }
+
+  private void readString() {
+    handler.startString();
+    handler.endString(readStringInternal(handler.isSymbol()));
+  }
+
+  /*
+   * Multi-byte UTF-8 sequences never contain bytes below 0x80, so quotes, backslashes and control
+   * characters can be found by scanning bytes. Runs between escapes are decoded in one go.
+   */
+  private String readStringInternal(boolean symbol) {
+    pos++;
+    int from = pos;
+    boolean ascii = true;
+    StringBuilder captured = null;
+    while (true) {
+      if (pos >= end) {
+        throw expected("valid string character");
+      }
+      int b = buffer[pos];
+      if (b == '"') {
+        break;
+      }
+      if (b == '\\') {
+        if (captured == null) {
+          captured = captureBuffer();
+        }
+        append(captured, from, pos, ascii);
+        readEscape(captured);
+        from = pos;
+        ascii = true;
+      } else if (b >= 0 && b < 0x20) {
+        throw expected("valid string character");
+      } else {
+        ascii &= b >= 0;
+        pos++;
+      }
+    }
+    String string;
+    if (captured == null) {
+      boolean shared = symbol && ascii && pos - from <= JsonSymbols.MAX_LENGTH;
+      string = shared ? JsonSymbols.lookup(buffer, from, pos) : decode(from, pos, ascii);
+    } else {
+      append(captured, from, pos, ascii);
+      string = captured.toString();
+    }
+    pos++;
+    return string;
+  }
+
+  private StringBuilder captureBuffer() {
+    if (captureBuffer == null) {
+      captureBuffer = new StringBuilder();
+    }
+    captureBuffer.setLength(0);
+    return captureBuffer;
+  }
+
+  private String decode(int from, int to, boolean ascii) {
+    return new String(buffer, from, to - from, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+  }
+
+  private void append(StringBuilder captured, int from, int to, boolean ascii) {
+    if (!ascii) {
+      captured.append(decode(from, to, false));
+      return;
+    }
+    for (int i = from; i < to; i++) {
+      captured.append((char)buffer[i]);
+    }
+  }
+
+  private void readEscape(StringBuilder captured) {
+    pos++;
+    switch (current()) {
+      case '"':
+      case '/':
+      case '\\':
+        captured.append((char)current());
+        break;
+      case 'b':
+        captured.append('\b');
+        break;
+      case 'f':
+        captured.append('\f');
+        break;
+      case 'n':
+        captured.append('\n');
+        break;
+      case 'r':
+        captured.append('\r');
+        break;
+      case 't':
+        captured.append('\t');
+        break;
+      case 'u':
+        int ch = 0;
+        for (int i = 0; i < 4; i++) {
+          pos++;
+          int digit = Character.digit(current(), 16);
+          if (digit < 0) {
+            throw expected("hexadecimal digit");
+          }
+          ch = ch << 4 | digit;
+        }
+        captured.append((char)ch);
+        break;
+      default:
+        throw expected("valid escape sequence");
+    }
+    pos++;
+  }
+
+  private void readNumber() {
+    handler.startNumber();
+    int from = pos;
+    boolean negative = readChar('-');
+    int firstDigit = current();
+    if (!readDigit()) {
+      throw expected("digit");
+    }
+    long value = firstDigit - '0';
+    int digits = 1;
+    if (firstDigit != '0') {
+      while (isDigit()) {
+        if (++digits <= MAX_LONG_DIGITS) {
+          value = value * 10 + (current() - '0');
+        }
+        pos++;
+      }
+    }
+    boolean integral = !readFraction() & !readExponent();
+    if (integral && digits <= MAX_LONG_DIGITS && !(negative && value == 0)) {
+      handler.endNumber(negative ? -value : value);
+    } else {
+      handler.endNumber(decode(from, pos, true));
+    }
+  }
+
+  private boolean readFraction() {
+    if (!readChar('.')) {
+      return false;
+    }
+    if (!readDigit()) {
+      throw expected("digit");
+    }
+    while (readDigit()) {
+    }
+    return true;
+  }
+
+  private boolean readExponent() {
+    if (!readChar('e') && !readChar('E')) {
+      return false;
+    }
+    if (!readChar('+')) {
+      readChar('-');
+    }
+    if (!readDigit()) {
+      throw expected("digit");
+    }
+    while (readDigit()) {
+    }
+    return true;
+  }
+
+  private boolean readChar(char ch) {
+    if (current() != ch) {
+      return false;
+    }
+    pos++;
+    return true;
+  }
+
+  private boolean readDigit() {
+    if (!isDigit()) {
+      return false;
+    }
+    pos++;
+    return true;
+  }
+
+  private boolean isDigit() {
+    int b = current();
+    return b >= '0' && b <= '9';
+  }
+
+  private void skipWhiteSpace() {
+    while (pos < end) {
+      byte b = buffer[pos];
+      if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+        return;
+      }
+      pos++;
+    }
+  }
+
+  /* Lines are only needed for error reporting, so they are counted on demand. */
+  Location getLocation() {
+    int line = 1;
+    int lineOffset = 0;
+    for (int i = start; i < pos && i < end; i++) {
+      if (buffer[i] == '\n') {
+        line++;
+        lineOffset = i - start + 1;
+      }
+    }
+    int offset = pos - start;
+    return new Location(offset, line, offset - lineOffset + 1);
+  }
+
+  private ParseException expected(String expected) {
+    if (pos >= end) {
+      return error("Unexpected end of input");
+    }
+    return error("Expected " + expected);
+  }
+
+  private ParseException error(String message) {
+    return new ParseException(message, getLocation());
+  }
+
+}
@@ -0,0 +1,148 @@
+package io.rqlite.client;
+
+import jdk.jfr.*;
+
+/**
+ * Flight recorder hooks for the driver hot paths, Java 11+ version of the no-op class in
+ * <code>src/main/java</code>. Events are only allocated when their type is enabled in the running
+ * recording, look for them under the "rqlite" category in JMC.
+ */
+public final class L4Events {
+
+  @Name("io.rqlite.Request")
+  @Label("rqlite Request")
+  @Category("rqlite")
+  @Description("Execute or query round trip, from request write to decoded response")
+  @StackTrace(false)
+  static final class Request extends Event {
+    @Label("Endpoint") String endpoint;
+    @Label("SQL") @Description("Fingerprint of the first statement") String sql;
+    @Label("Statements") int statements;
+    @Label("Status") int status;
+    @Label("Results") int results;
+    @Label("Rows") long rows;
+    @Label("Request Size") @DataAmount long requestBytes;
+    @Label("Response Size") @DataAmount long responseBytes;
+    @Label("Server Time") @Description("rqlite reported time, with timings=true") @Timespan long serverTime;
+    @Label("Parse Time") @Timespan long parseTime;
+  }
+
+  @Name("io.rqlite.Parse")
+  @Label("rqlite Response Parse")
+  @Category("rqlite")
+  @StackTrace(false)
+  static final class Parse extends Event {
+    @Label("Response Size") @DataAmount long bytes;
+    @Label("Results") int results;
+    @Label("Rows") long rows;
+  }
+
+  @Name("io.rqlite.ResultSet")
+  @Label("rqlite ResultSet")
+  @Category("rqlite")
+  @Description("ResultSet lifetime, from creation to close")
+  static final class ResultSet extends Event {
+    @Label("Columns") int columns;
+    @Label("Rows") long rows;
+    @Label("Rows Read") long rowsRead;
+  }
+
+  private static final EventType RequestType = EventType.getEventType(Request.class);
+  private static final EventType ParseType = EventType.getEventType(Parse.class);
+  private static final EventType ResultSetType = EventType.getEventType(ResultSet.class);
+
+  private L4Events() {}
+
+  private static long rowsOf(L4Response response) {
+    long rows = 0;
+    if (response.results != null) {
+      for (L4Result r : response.results) {
+        rows += r.values != null ? r.values.size() : 0;
+      }
+    }
+    return rows;
+  }
+
+  private static int sizeOf(L4HttpResp http) {
+    byte[] bytes = http.bytes();
+    return bytes != null ? bytes.length : 0;
+  }
+
+  static Object beginRequest() {
+    if (!RequestType.isEnabled()) {
+      return null;
+    }
+    Request e = new Request();
+    e.begin();
+    return e;
+  }
+
+  static void endRequest(Object event, String endpoint, L4Statement[] statements, int count,
+                         L4HttpResp http, L4Response response, long parseNanos) {
+    if (event == null) {
+      return;
+    }
+    Request e = (Request) event;
+    e.end();
+    if (e.shouldCommit()) {
+      e.endpoint = endpoint;
+      e.sql = statements.length > 0 ? L4Statement.fingerprint(statements[0].sql) : null;
+      e.statements = count;
+      e.status = http.statusCode();
+      e.results = response.results != null ? response.results.size() : 0;
+      e.rows = rowsOf(response);
+      e.requestBytes = http.requestBytes;
+      e.responseBytes = sizeOf(http);
+      e.serverTime = response.time != null ? (long) (response.time * 1_000_000_000d) : 0;
+      e.parseTime = parseNanos;
+      e.commit();
+    }
+  }
+
+  static Object beginParse() {
+    if (!ParseType.isEnabled()) {
+      return null;
+    }
+    Parse e = new Parse();
+    e.begin();
+    return e;
+  }
+
+  static void endParse(Object event, L4HttpResp http, L4Response response) {
+    if (event == null) {
+      return;
+    }
+    Parse e = (Parse) event;
+    e.end();
+    if (e.shouldCommit()) {
+      e.bytes = sizeOf(http);
+      e.results = response.results != null ? response.results.size() : 0;
+      e.rows = rowsOf(response);
+      e.commit();
+    }
+  }
+
+  public static Object beginResultSet() {
+    if (!ResultSetType.isEnabled()) {
+      return null;
+    }
+    ResultSet e = new ResultSet();
+    e.begin();
+    return e;
+  }
+
+  public static void endResultSet(Object event, L4Result result, int rowsRead) {
+    if (event == null) {
+      return;
+    }
+    ResultSet e = (ResultSet) event;
+    e.end();
+    if (e.shouldCommit()) {
+      e.columns = result.columns != null ? result.columns.size() : 0;
+      e.rows = result.values != null ? result.values.size() : 0;
+      e.rowsRead = rowsRead;
+      e.commit();
+    }
+  }
+
+}
@@ -0,0 +1,201 @@
+package io.rqlite.client;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+
+/**
+ * Java 21+ version of the transport in <code>src/main/java</code>, on
+ * <code>java.net.http.HttpClient</code>. Callers block on the response future, which parks a
+ * virtual thread without pinning its carrier, and connections are kept alive and shared by every
+ * {@link L4Client} in the JVM. Completion handlers run on virtual threads too.
+ * <p>
+ * With {@link L4Options#http2}, requests are multiplexed as HTTP/2 streams, negotiated through ALPN
+ * over TLS or an h2c upgrade otherwise (servers that decline keep HTTP/1.1). Each client holds one
+ * connection per node, so requests are spread over {@link L4Options#http2Connections} clients.
+ */
+abstract class L4Transport {
+
+  private static final class Jdk extends L4Transport {
+
+    final HttpClient[] clients;
+    final ExecutorService[] executors;
+    final AtomicInteger next = new AtomicInteger();
+    final Map<String, CompletableFuture<Void>> connected = new ConcurrentHashMap<>();
+    final SSLContext ssl;
+    final boolean http2;
+
+    Jdk(SSLContext ssl, boolean http2, int connections) {
+      this.ssl = ssl;
+      this.http2 = http2;
+      this.clients = new HttpClient[http2 ? Math.max(1, connections) : 1];
+      this.executors = new ExecutorService[clients.length];
+      for (int i = 0; i < clients.length; i++) {
+        executors[i] = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient.Builder b = HttpClient.newBuilder()
+          .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+          .followRedirects(HttpClient.Redirect.NORMAL)
+          .executor(executors[i]);
+        if (ssl != null) {
+          b.sslContext(ssl);
+        }
+        clients[i] = b.build();
+      }
+    }
+
+    /* Lets requests in flight finish, then closes the connections and stops the threads. */
+    void close() {
+      Thread.ofVirtual().name("l4-transport-close").start(() -> {
+        for (int i = 0; i < clients.length; i++) {
+          clients[i].close();
+          executors[i].close();
+        }
+      });
+    }
+
+    boolean matches(SSLContext ssl, boolean http2, int connections) {
+      return this.ssl == ssl && this.http2 == http2 && (!http2 || clients.length == Math.max(1, connections));
+    }
+
+    @Override L4HttpResp send(String method, String url, String authHeader, byte[] body, int bodyLen, L4Call call) throws Exception {
+      long start = System.nanoTime();
+      URI uri = URI.create(url);
+      int idx = (next.getAndIncrement() & Integer.MAX_VALUE) % clients.length;
+      if (http2) {
+        awaitConnection(idx, uri, call);
+      }
+      HttpRequest.Builder rb = HttpRequest.newBuilder(uri)
+        .method(method, body != null ? HttpRequest.BodyPublishers.ofByteArray(body, 0, bodyLen) : HttpRequest.BodyPublishers.noBody());
+      if ((call == null || !call.hasTimeout()) && L4Options.timeoutSec > 0) {
+        rb.timeout(remaining(start)); // a call's own deadline is enforced by the call
+      }
+      if (body != null) {
+        rb.header("Content-Type", "application/json");
+      }
+      if (authHeader != null) {
+        rb.header("Authorization", authHeader);
+      }
+      CompletableFuture<HttpResponse<byte[]>> f = clients[idx].sendAsync(rb.build(), HttpResponse.BodyHandlers.ofByteArray());
+      if (call != null) {
+        try {
+          call.attach(() -> f.cancel(true));
+        } catch (IllegalStateException e) {
+          f.cancel(true);
+          throw e;
+        }
+      }
+      try {
+        HttpResponse<byte[]> res = f.get();
+        return new L4HttpResp(res.statusCode(), res.body());
+      } catch (ExecutionException e) {
+        throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+      }
+    }
+
+    /* What is left of timeoutSec since start, time spent waiting for a connection included. */
+    private static Duration remaining(long start) throws HttpTimeoutException {
+      long leftNs = TimeUnit.SECONDS.toNanos(L4Options.timeoutSec) - (System.nanoTime() - start);
+      if (leftNs <= 0) {
+        throw new HttpTimeoutException("request timed out");
+      }
+      return Duration.ofNanos(leftNs);
+    }
+
+    /*
+     * Requests to an origin with no HTTP/2 connection yet would each open one of their own, so the
+     * first one sends a HEAD request to the origin (which also lets h2c upgrade, as requests with a
+     * body cannot) and every request waits until it is answered, that is, only for the connection
+     * setup. Waiters stop on their call's deadline or cancellation, or at timeoutSec otherwise.
+     */
+    private void awaitConnection(int idx, URI uri, L4Call call) throws Exception {
+      String origin = uri.getScheme() + "://" + uri.getRawAuthority();
+      String key = idx + " " + origin;
+      CompletableFuture<Void> gate = connected.get(key);
+      if (gate == null) {
+        CompletableFuture<Void> mine = new CompletableFuture<>();
+        gate = connected.putIfAbsent(key, mine);
+        if (gate == null) {
+          gate = mine;
+          HttpRequest.Builder rb = HttpRequest.newBuilder(URI.create(origin + "/readyz"))
+            .method("HEAD", HttpRequest.BodyPublishers.noBody());
+          if (L4Options.timeoutSec > 0) {
+            rb.timeout(Duration.ofSeconds(L4Options.timeoutSec));
+          }
+          clients[idx].sendAsync(rb.build(), HttpResponse.BodyHandlers.discarding()).whenComplete((res, e) -> {
+            if (e != null) {
+              connected.remove(key, mine); // the next request tries to connect again
+            }
+            mine.complete(null);
+          });
+        }
+      }
+      if (gate.isDone()) {
+        return;
+      }
+      CompletableFuture<Void> wait = gate.thenApply(v -> v); // cancelled alone, leaving the gate to the others
+      boolean ownDeadline = call != null && call.hasTimeout();
+      if (call != null) {
+        call.attach(() -> wait.cancel(false)); // starts the call's deadline, which then covers the request too
+      }
+      try {
+        if (ownDeadline || L4Options.timeoutSec <= 0) {
+          wait.get();
+        } else {
+          wait.get(L4Options.timeoutSec, TimeUnit.SECONDS);
+        }
+      } catch (CancellationException e) {
+        call.check();
+        throw e;
+      } catch (TimeoutException e) {
+        throw new HttpTimeoutException("no connection to " + origin + " within " + L4Options.timeoutSec + "s");
+      }
+    }
+  }
+
+  private static volatile Jdk instance;
+
+  static boolean supportsHttp2() {
+    return true;
+  }
+
+  /*
+   * Rebuilt when a different TLS context is installed through L4Http, or the HTTP/2 options change.
+   * The previous clients are closed once the requests they carry are done.
+   */
+  static L4Transport get() {
+    SSLContext ssl = L4Http.sslContext;
+    boolean http2 = L4Options.http2;
+    int connections = L4Options.http2Connections;
+    Jdk t = instance;
+    if (t == null || !t.matches(ssl, http2, connections)) {
+      synchronized (L4Transport.class) {
+        t = instance;
+        if (t == null || !t.matches(ssl, http2, connections)) {
+          if (t != null) {
+            t.close();
+          }
+          instance = t = new Jdk(ssl, http2, connections);
+        }
+      }
+    }
+    return t;
+  }
+
+  abstract L4HttpResp send(String method, String url, String authHeader, byte[] body, int bodyLen, L4Call call) throws Exception;
+
+}
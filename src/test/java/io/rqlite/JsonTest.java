@@ -1,15 +1,20 @@
 package io.rqlite;
 
+import io.rqlite.client.L4Response;
+import io.rqlite.client.L4Result;
 import io.rqlite.json.Json;
+import io.rqlite.json.ParseException;
 import j8spec.annotation.DefinedOrder;
 import j8spec.junit.J8SpecRunner;
 import org.junit.runner.RunWith;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import io.rqlite.json.JsonValue;
 
 import static j8spec.J8Spec.*;
+import static org.junit.Assert.*;
 
 @DefinedOrder
 @RunWith(J8SpecRunner.class)
@@ -21,5 +26,50 @@ public class JsonTest {
         System.out.println(jv.toString());
       }
     });
+    it("Parses UTF-8 bytes like the equivalent text", () -> {
+      String[] inputs = {
+        "{\"results\":[{\"columns\":[\"id\",\"name\"],\"types\":[\"integer\",\"text\"],\"values\":[[1,\"héllo ✓\"],[-0,\"a\\\"b\\u00e9\"]]}]}",
+        "[0, -1, 1234567890123456789, 1.50, 2e10, true, false, null, \"\"]",
+        "\"\\n\\t\\/ 😀\""
+      };
+      for (String in : inputs) {
+        JsonValue fromChars = Json.parse(in);
+        JsonValue fromBytes = Json.parse(in.getBytes(StandardCharsets.UTF_8));
+        assertEquals(fromChars, fromBytes);
+        assertEquals(fromChars.toString(), fromBytes.toString());
+      }
+      JsonValue n = Json.parse("[9007199254740993]".getBytes(StandardCharsets.UTF_8)).asArray().get(0);
+      assertEquals(9007199254740993L, n.asLong());
+      assertEquals("9007199254740993", n.toString());
+      try {
+        Json.parse("[1, \"abc]".getBytes(StandardCharsets.UTF_8));
+        fail();
+      } catch (ParseException e) {
+        assertEquals(1, e.getLocation().line);
+      }
+    });
+    it("Builds rqlite responses straight from UTF-8 bytes", () -> {
+      String body = "{\"results\":[{\"columns\":[\"id\",\"name\",\"meta\"],\"types\":[\"integer\",\"text\",\"json\"],"
+        + "\"values\":[[1,\"Ana\",null],[2,\"Bob\",{\"k\":[1,true]}]],\"time\":0.001},"
+        + "{\"last_insert_id\":7,\"rows_affected\":1},{\"error\":\"no such table: t\"}],\"time\":0.25}";
+      L4Response fromDom = L4Response.response(200, Json.parse(body).asObject());
+      L4Response fromBytes = L4Response.response(200, body.getBytes(StandardCharsets.UTF_8));
+      assertEquals(fromDom.time, fromBytes.time);
+      assertEquals(fromDom.results.size(), fromBytes.results.size());
+      for (int i = 0; i < fromDom.results.size(); i++) {
+        L4Result a = fromDom.results.get(i), b = fromBytes.results.get(i);
+        assertEquals(a.columns, b.columns);
+        assertEquals(a.types, b.types);
+        assertEquals(a.values, b.values);
+        assertEquals(a.lastInsertId, b.lastInsertId);
+        assertEquals(a.rowsAffected, b.rowsAffected);
+        assertEquals(a.error, b.error);
+      }
+      assertEquals("{\"k\":[1,true]}", fromBytes.first().values.get(1).get(2));
+
+      L4Result again = L4Response.response(200, body.getBytes(StandardCharsets.UTF_8)).first();
+      assertSame(fromBytes.first().columns.get(1), again.columns.get(1));
+      assertSame(fromBytes.first().types.get(0), again.types.get(0));
+    });
   }
 }
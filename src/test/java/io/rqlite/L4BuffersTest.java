@@ -0,0 +1,60 @@
+package io.rqlite;
+
+import io.rqlite.client.L4Buffers;
+import j8spec.annotation.DefinedOrder;
+import j8spec.junit.J8SpecRunner;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+import static j8spec.J8Spec.*;
+import static org.junit.Assert.*;
+
+@DefinedOrder
+@RunWith(J8SpecRunner.class)
+public class L4BuffersTest {
+  static {
+    it("Reuses pooled buffers and counts hits", () -> {
+      L4Buffers.reset();
+      byte[] b = L4Buffers.take(5000);
+      assertEquals(8192, b.length);
+      L4Buffers.give(b);
+      assertSame(b, L4Buffers.take(6000));
+      L4Buffers.Stats s = L4Buffers.stats();
+      assertTrue(s.hits >= 1);
+      assertTrue(s.hitRate() > 0);
+    });
+
+    it("Shares large buffers between threads", () -> {
+      L4Buffers.reset();
+      byte[] b;
+      do {
+        b = L4Buffers.take(64 * 1024); // empties the class, so the next hit can only be b
+      } while (L4Buffers.stats().misses == 0);
+      byte[] given = b;
+      CompletableFuture.runAsync(() -> L4Buffers.give(given)).get();
+      assertSame(given, L4Buffers.take(40 * 1024));
+    });
+
+    it("Hands out cleared direct buffers", () -> {
+      ByteBuffer b = L4Buffers.takeDirect(100);
+      assertTrue(b.isDirect());
+      assertEquals(L4Buffers.MinBytes, b.capacity());
+      b.put(new byte[10]).flip();
+      L4Buffers.give(b);
+      ByteBuffer again = L4Buffers.takeDirect(L4Buffers.MinBytes);
+      assertEquals(0, again.position());
+      assertEquals(again.capacity(), again.limit());
+    });
+
+    it("Never pools sizes past the largest class", () -> {
+      L4Buffers.reset();
+      byte[] big = L4Buffers.take(L4Buffers.MaxBytes + 1);
+      assertEquals(L4Buffers.MaxBytes + 1, big.length);
+      L4Buffers.give(big);
+      assertNotSame(big, L4Buffers.take(L4Buffers.MaxBytes + 1));
+      assertEquals(0, L4Buffers.stats().hits);
+    });
+  }
+}
@@ -1,12 +1,35 @@
 package io.rqlite;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import io.rqlite.client.L4Backup;
 import io.rqlite.client.L4Statement;
 import io.rqlite.client.L4Client;
+import io.rqlite.client.L4Level;
+import io.rqlite.client.L4Options;
 import io.rqlite.client.L4Response;
+import io.rqlite.client.L4TxMark;
 import j8spec.annotation.DefinedOrder;
 import j8spec.junit.J8SpecRunner;
 import org.junit.runner.RunWith;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static java.lang.String.join;
 import static j8spec.J8Spec.*;
 import static org.junit.Assert.*;
@@ -14,6 +37,47 @@ import static org.junit.Assert.*;
 @DefinedOrder
 @RunWith(J8SpecRunner.class)
 public class L4ClientTest {
+
+  /* Transaction spill files in the temp directory. */
+  private static long spillFiles() {
+    File[] files = new File(System.getProperty("java.io.tmpdir")).listFiles((dir, name) -> name.startsWith("l4tx"));
+    return files != null ? files.length : 0;
+  }
+
+  /* A node on the loopback address, answering every request through the handler. */
+  private static HttpServer node(HttpHandler handler) throws IOException {
+    HttpServer hs = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 50);
+    hs.createContext("/", handler);
+    hs.start();
+    return hs;
+  }
+
+  private static L4Client client(HttpServer hs) {
+    return new L4Client("http://127.0.0.1:" + hs.getAddress().getPort());
+  }
+
+  private static byte[] bodyOf(HttpExchange ex) throws IOException {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    byte[] buf = new byte[8192];
+    for (int n; (n = ex.getRequestBody().read(buf)) != -1; ) {
+      bos.write(buf, 0, n);
+    }
+    return bos.toByteArray();
+  }
+
+  private static void respond(HttpExchange ex, int code, String body) throws IOException {
+    byte[] b = body.getBytes(StandardCharsets.UTF_8);
+    ex.sendResponseHeaders(code, b.length == 0 ? -1 : b.length);
+    ex.getResponseBody().write(b);
+    ex.close();
+  }
+
+  private static String[] listing(Path dir) {
+    String[] files = dir.toFile().list();
+    Arrays.sort(files);
+    return files;
+  }
+
   static {
     if (L4Tests.runIntegrationTests) {
       it("Interacts with an Rqlite instance", () -> {
@@ -56,6 +120,307 @@ public class L4ClientTest {
         assertEquals(200, res3.statusCode);
         res3.print(System.out);
       });
+      it("Acknowledges queued writes once the queue is flushed", () -> {
+        L4Client rq = L4Tests.localClient();
+        rq.executeSingle("CREATE TABLE IF NOT EXISTS queued_events (id INTEGER PRIMARY KEY, payload TEXT)");
+        L4Response r0 = rq.executeQueued(new L4Statement().sql("INSERT INTO queued_events (payload) VALUES (?)").withPositionalParam("a"));
+        L4Response r1 = rq.executeQueued(new L4Statement().sql("INSERT INTO queued_events (payload) VALUES (?)").withPositionalParam("b"));
+        assertNotNull(r0.sequenceNumber);
+        assertNotNull(r1.sequenceNumber);
+        CompletableFuture<Long> committed = rq.whenCommitted(r1.sequenceNumber);
+        long seq = rq.flushQueue();
+        assertTrue(seq >= r1.sequenceNumber);
+        assertEquals(Long.valueOf(seq), committed.get());
+        assertTrue(rq.whenCommitted(r0.sequenceNumber).isDone());
+      });
+      it("Rolls a buffered transaction back to a mark", () -> {
+        L4Client rq = L4Tests.localClient();
+        rq.executeSingle("CREATE TABLE IF NOT EXISTS marked (id INTEGER PRIMARY KEY, label TEXT)");
+        rq.executeSingle("DELETE FROM marked");
+        rq.startBuffer();
+        rq.execute(true, new L4Statement().sql("INSERT INTO marked (label) VALUES (?)").withPositionalParam("kept"));
+        L4TxMark mark = rq.mark();
+        rq.execute(true, new L4Statement().sql("INSERT INTO marked (label) VALUES (?)").withPositionalParam("dropped"));
+        rq.rollbackTo(mark);
+        rq.execute(true, new L4Statement().sql("INSERT INTO marked (label) VALUES (?)").withPositionalParam("after"));
+        rq.stopBuffer(true, res -> assertEquals(2, res.results.size()));
+        L4Response res = rq.querySingle("SELECT label FROM marked ORDER BY id");
+        assertEquals(2, res.first().values.size());
+        assertEquals("kept", res.first().values.get(0).get(0));
+        assertEquals("after", res.first().values.get(1).get(0));
+      });
+      it("Commits a buffered transaction spilled to disk", () -> {
+        long spill = L4Options.txSpillBytes;
+        L4Options.txSpillBytes = 256;
+        try {
+          L4Client rq = L4Tests.localClient();
+          rq.executeSingle("CREATE TABLE IF NOT EXISTS spilled (id INTEGER PRIMARY KEY, label TEXT)");
+          rq.executeSingle("DELETE FROM spilled");
+          long files0 = spillFiles();
+          rq.startBuffer();
+          for (int i = 0; i < 50; i++) {
+            rq.execute(true, new L4Statement().sql("INSERT INTO spilled (label) VALUES (?)").withPositionalParam("row " + i));
+          }
+          assertEquals(files0 + 1, spillFiles());
+          rq.stopBuffer(true, res -> assertEquals(50, res.results.size()));
+          assertEquals(files0, spillFiles());
+          L4Response res = rq.querySingle("SELECT COUNT(*), MAX(label) FROM spilled");
+          assertEquals("50", res.first().values.get(0).get(0));
+          assertEquals("row 9", res.first().values.get(0).get(1));
+        } finally {
+          L4Options.txSpillBytes = spill;
+        }
+      });
+      it("Rolls a buffered transaction back to a mark taken before it spilled", () -> {
+        long spill = L4Options.txSpillBytes;
+        L4Options.txSpillBytes = 256;
+        try {
+          L4Client rq = L4Tests.localClient();
+          rq.executeSingle("CREATE TABLE IF NOT EXISTS spilled (id INTEGER PRIMARY KEY, label TEXT)");
+          rq.executeSingle("DELETE FROM spilled");
+          long files0 = spillFiles();
+          rq.startBuffer();
+          rq.execute(true, new L4Statement().sql("INSERT INTO spilled (label) VALUES (?)").withPositionalParam("kept"));
+          L4TxMark mark = rq.mark();
+          for (int i = 0; i < 50; i++) {
+            rq.execute(true, new L4Statement().sql("INSERT INTO spilled (label) VALUES (?)").withPositionalParam("dropped " + i));
+          }
+          assertEquals(files0 + 1, spillFiles());
+          rq.rollbackTo(mark);
+          rq.execute(true, new L4Statement().sql("INSERT INTO spilled (label) VALUES (?)").withPositionalParam("after"));
+          rq.stopBuffer(true, res -> assertEquals(2, res.results.size()));
+          assertEquals(files0, spillFiles());
+          L4Response res = rq.querySingle("SELECT label FROM spilled ORDER BY id");
+          assertEquals(2, res.first().values.size());
+          assertEquals("kept", res.first().values.get(0).get(0));
+          assertEquals("after", res.first().values.get(1).get(0));
+        } finally {
+          L4Options.txSpillBytes = spill;
+        }
+      });
+      it("Pipelines concurrent requests over the NIO transport", () -> {
+        L4Options.nio = true;
+        try {
+          L4Client rq = L4Tests.localClient();
+          rq.executeSingle("CREATE TABLE IF NOT EXISTS piped (id INTEGER PRIMARY KEY, label TEXT)");
+          List<CompletableFuture<L4Response>> reads = new ArrayList<>();
+          for (int i = 0; i < 64; i++) {
+            reads.add(CompletableFuture.supplyAsync(() -> rq.querySingle("SELECT COUNT(*) FROM piped")));
+          }
+          for (CompletableFuture<L4Response> read : reads) {
+            assertEquals(1, read.get().first().values.size());
+          }
+        } finally {
+          L4Options.nio = false;
+        }
+      });
     }
+    it("Loads a SQLite database file or a SQL dump through /db/load", () -> {
+      List<String> requests = new CopyOnWriteArrayList<>();
+      List<byte[]> bodies = new CopyOnWriteArrayList<>();
+      HttpServer hs = node(ex -> {
+        String type = ex.getRequestHeaders().getFirst("Content-Type");
+        bodies.add(bodyOf(ex));
+        requests.add(join(" ", ex.getRequestMethod(), ex.getRequestURI().getPath(), type,
+          ex.getRequestHeaders().getFirst("Content-Length"), String.valueOf(ex.getRequestHeaders().getFirst("Transfer-Encoding"))));
+        respond(ex, 200, type.equals("text/plain") ? "{\"results\":[{\"rows_affected\":0},{\"last_insert_id\":1,\"rows_affected\":1}]}" : "");
+      });
+      Path dir = Files.createTempDirectory("l4load");
+      Path db = dir.resolve("app.db"), dump = dir.resolve("app.sql"), tiny = dir.resolve("tiny.sql");
+      try {
+        L4Client rq = client(hs);
+        byte[] dbBytes = new byte[200_000];
+        for (int i = 0; i < dbBytes.length; i++) {
+          dbBytes[i] = (byte) i;
+        }
+        byte[] magic = "SQLite format 3\0".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(magic, 0, dbBytes, 0, magic.length);
+        Files.write(db, dbBytes);
+        L4Response res = rq.load(db);
+        assertEquals(200, res.statusCode);
+        assertTrue(res.results.isEmpty());
+        assertEquals("POST /db/load application/octet-stream 200000 null", requests.get(0));
+        assertArrayEquals(dbBytes, bodies.get(0));
+
+        byte[] sql = "CREATE TABLE t (id INTEGER);\nINSERT INTO t VALUES (1);\n".getBytes(StandardCharsets.UTF_8);
+        Files.write(dump, sql);
+        res = rq.load(dump);
+        assertEquals(200, res.statusCode);
+        assertEquals(2, res.results.size());
+        assertEquals("POST /db/load text/plain " + sql.length + " null", requests.get(1));
+        assertArrayEquals(sql, bodies.get(1));
+
+        Files.write(tiny, "SQLite".getBytes(StandardCharsets.US_ASCII)); // shorter than the header
+        rq.load(tiny);
+        assertEquals("POST /db/load text/plain 6 null", requests.get(2));
+      } finally {
+        hs.stop(0);
+        Files.deleteIfExists(db);
+        Files.deleteIfExists(dump);
+        Files.deleteIfExists(tiny);
+        Files.delete(dir);
+      }
+    });
+    it("Streams a backup into place and leaves nothing behind when it fails", () -> {
+      byte[] snapshot = new byte[300_000];
+      for (int i = 0; i < snapshot.length; i++) {
+        snapshot[i] = (byte) (i * 31);
+      }
+      List<String> queries = new CopyOnWriteArrayList<>();
+      AtomicInteger mode = new AtomicInteger(); // 0 streams the snapshot, 1 answers 500, 2 breaks off mid-body
+      HttpServer hs = node(ex -> {
+        queries.add(ex.getRequestURI().getPath() + "?" + ex.getRequestURI().getQuery());
+        if (mode.get() == 1) {
+          respond(ex, 500, "backup failed");
+          return;
+        }
+        ex.sendResponseHeaders(200, mode.get() == 0 ? 0 : snapshot.length);
+        try {
+          for (int off = 0; off < snapshot.length; off += 10_000) {
+            ex.getResponseBody().write(snapshot, off, 10_000);
+            ex.getResponseBody().flush();
+            if (mode.get() == 2 && off >= 50_000) {
+              break;
+            }
+          }
+        } finally {
+          ex.close();
+        }
+      });
+      Path dir = Files.createTempDirectory("l4backup");
+      Path file = dir.resolve("app.db");
+      try {
+        L4Client rq = client(hs);
+        List<Long> progress = new CopyOnWriteArrayList<>();
+        assertEquals(snapshot.length, rq.backup(file, L4Backup.binary, false, progress::add));
+        assertArrayEquals(snapshot, Files.readAllBytes(file));
+        assertArrayEquals(new String[] {"app.db"}, listing(dir));
+        assertEquals(snapshot.length, (long) progress.get(progress.size() - 1));
+        for (int i = 1; i < progress.size(); i++) {
+          assertTrue(progress.get(i - 1) < progress.get(i));
+        }
+        assertEquals("/db/backup?null", queries.get(0));
+
+        rq.backup(file, L4Backup.sql, true, null);
+        assertEquals("/db/backup?fmt=sql&compress", queries.get(1));
+        rq.backup(file, L4Backup.sql);
+        assertEquals("/db/backup?fmt=sql", queries.get(2));
+
+        for (int m = 1; m <= 2; m++) {
+          mode.set(m);
+          try {
+            rq.backup(file, L4Backup.binary, false, null);
+            fail("failed backup returned");
+          } catch (IllegalStateException e) {
+            assertArrayEquals(snapshot, Files.readAllBytes(file)); // the previous backup is untouched
+            assertArrayEquals(new String[] {"app.db"}, listing(dir));
+          }
+        }
+      } finally {
+        hs.stop(0);
+        Files.deleteIfExists(file);
+        Files.delete(dir);
+      }
+    });
+    it("Reads from the leader while the node lags this client's last write", () -> {
+      AtomicInteger probes = new AtomicInteger(), applied = new AtomicInteger(5);
+      List<String> levels = new CopyOnWriteArrayList<>();
+      HttpServer hs = node(ex -> {
+        String path = ex.getRequestURI().getPath(), query = ex.getRequestURI().getQuery();
+        if (path.equals("/status")) {
+          probes.incrementAndGet();
+          respond(ex, 200, "{\"store\":{\"raft\":{\"applied_index\":" + applied.get() + "}}}");
+        } else if (path.equals("/db/execute")) {
+          respond(ex, 200, "{\"results\":[{\"rows_affected\":1}],\"raft_index\":10}");
+        } else {
+          levels.add(query.replaceAll(".*level=(\\w+).*", "$1"));
+          respond(ex, 200, "{\"results\":[{\"columns\":[\"v\"],\"types\":[\"integer\"],\"values\":[[1]]}]}");
+        }
+      });
+      L4Level level = L4Options.level;
+      L4Options.level = L4Level.none;
+      try {
+        L4Client rq = client(hs);
+        L4Options.readYourWrites = true;
+        rq.querySingle("SELECT 1");
+        assertEquals(0, probes.get()); // nothing written yet
+        rq.executeSingle("INSERT INTO t VALUES (1)");
+        assertEquals(10, rq.getWriteIndex());
+        rq.querySingle("SELECT 1");
+        assertEquals(1, probes.get());
+
+        applied.set(10);
+        Thread.sleep(150);
+        rq.querySingle("SELECT 1");
+        rq.querySingle("SELECT 1");
+        assertEquals(2, probes.get()); // caught up, no need to ask again
+
+        L4Options.readYourWrites = false;
+        rq.executeSingle("INSERT INTO t VALUES (2)");
+        rq.querySingle("SELECT 1");
+        assertEquals(Arrays.asList("none", "weak", "none", "none", "none"), levels);
+        assertEquals(2, probes.get());
+      } finally {
+        L4Options.readYourWrites = false;
+        L4Options.level = level;
+        hs.stop(0);
+      }
+    });
+    it("Reads a lagging node's applied index at most once per interval, and not after it fails", () -> {
+      AtomicInteger probes = new AtomicInteger(), raftIndex = new AtomicInteger();
+      AtomicBoolean statusFails = new AtomicBoolean();
+      List<String> levels = new CopyOnWriteArrayList<>();
+      HttpServer hs = node(ex -> {
+        String path = ex.getRequestURI().getPath(), query = ex.getRequestURI().getQuery();
+        String body;
+        int code = 200;
+        if (path.equals("/status")) {
+          probes.incrementAndGet();
+          code = statusFails.get() ? 500 : 200;
+          body = "{\"store\":{\"raft\":{\"applied_index\":5}}}";
+        } else if (path.equals("/db/execute")) {
+          body = "{\"results\":[{\"rows_affected\":1}],\"raft_index\":" + (10 + raftIndex.incrementAndGet()) + "}";
+        } else {
+          levels.add(query.replaceAll(".*level=(\\w+).*", "$1"));
+          body = "{\"results\":[{\"columns\":[\"v\"],\"types\":[\"integer\"],\"values\":[[1]]}]}";
+        }
+        respond(ex, code, body);
+      });
+      L4Level level = L4Options.level;
+      L4Options.readYourWrites = true;
+      L4Options.level = L4Level.none;
+      try {
+        L4Client rq = client(hs);
+        rq.executeSingle("INSERT INTO t VALUES (1)");
+        long t0 = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+          rq.querySingle("SELECT 1");
+        }
+        long elapsedMs = (System.nanoTime() - t0) / 1_000_000;
+        assertTrue(probes.get() >= 1 && probes.get() <= 1 + elapsedMs / 100);
+        int p = probes.get();
+        Thread.sleep(150);
+        rq.querySingle("SELECT 1");
+        assertEquals(p + 1, probes.get());
+        assertTrue(levels.stream().allMatch("weak"::equals));
+
+        statusFails.set(true);
+        Thread.sleep(150);
+        rq.querySingle("SELECT 1");
+        assertEquals(p + 2, probes.get());
+        Thread.sleep(150);
+        rq.querySingle("SELECT 1");
+        assertEquals(p + 2, probes.get()); // not again until the next write
+        rq.executeSingle("INSERT INTO t VALUES (2)");
+        Thread.sleep(150);
+        rq.querySingle("SELECT 1");
+        assertEquals(p + 3, probes.get());
+        assertTrue(levels.stream().allMatch("weak"::equals));
+      } finally {
+        L4Options.readYourWrites = false;
+        L4Options.level = level;
+        hs.stop(0);
+      }
+    });
   }
 }
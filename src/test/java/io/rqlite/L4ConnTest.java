@@ -0,0 +1,136 @@
+package io.rqlite;
+
+import io.rqlite.client.L4Client;
+import io.rqlite.jdbc.L4Conn;
+import j8spec.UnsafeBlock;
+import j8spec.annotation.DefinedOrder;
+import j8spec.junit.J8SpecRunner;
+import org.junit.runner.RunWith;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.rqlite.jdbc.L4Err.*;
+import static j8spec.J8Spec.*;
+import static org.junit.Assert.*;
+
+@DefinedOrder
+@RunWith(J8SpecRunner.class)
+public class L4ConnTest {
+
+  private static void expectState(UnsafeBlock action, String sqlState) throws Throwable {
+    try {
+      action.tryToExecute();
+      fail("Expected SQLException with SQLState " + sqlState);
+    } catch (SQLException e) {
+      assertEquals(sqlState, e.getSQLState());
+    }
+  }
+
+  /* A connection over an empty sp_test table. */
+  private static Connection open(L4Client rq) throws SQLException {
+    rq.executeSingle("CREATE TABLE IF NOT EXISTS sp_test (id INTEGER PRIMARY KEY, label TEXT)");
+    rq.executeSingle("DELETE FROM sp_test");
+    return new L4Conn(rq);
+  }
+
+  private static void insert(Connection conn, String label) throws SQLException {
+    try (PreparedStatement ps = conn.prepareStatement("INSERT INTO sp_test (label) VALUES (?)")) {
+      ps.setString(1, label);
+      ps.executeUpdate();
+    }
+  }
+
+  private static List<String> labels(Connection conn) throws SQLException {
+    List<String> out = new ArrayList<>();
+    try (Statement st = conn.createStatement(); ResultSet rs = st.executeQuery("SELECT label FROM sp_test ORDER BY id")) {
+      while (rs.next()) {
+        out.add(rs.getString(1));
+      }
+    }
+    return out;
+  }
+
+  static {
+    if (L4Tests.runIntegrationTests) {
+      L4Client rq = L4Tests.localClient();
+
+      it("Fails to set a savepoint with auto-commit on", () -> {
+        Connection conn = open(rq);
+        assertTrue(conn.getAutoCommit());
+        expectState(conn::setSavepoint, SqlStateInvalidTransaction);
+        expectState(() -> conn.setSavepoint("sp"), SqlStateInvalidTransaction);
+        expectState(() -> conn.setSavepoint(null), SqlStateInvalidParam);
+      });
+
+      it("Identifies unnamed savepoints by id and named ones by name", () -> {
+        Connection conn = open(rq);
+        conn.setAutoCommit(false);
+        Savepoint unnamed = conn.setSavepoint();
+        Savepoint named = conn.setSavepoint("before_update");
+        assertTrue(unnamed.getSavepointId() > 0);
+        expectState(unnamed::getSavepointName, SqlStateInvalidTransaction);
+        assertEquals("before_update", named.getSavepointName());
+        expectState(named::getSavepointId, SqlStateInvalidTransaction);
+        conn.rollback();
+      });
+
+      it("Rolls back to nested savepoints and releases the ones set after them", () -> {
+        Connection conn = open(rq);
+        conn.setAutoCommit(false);
+        insert(conn, "a");
+        Savepoint sp1 = conn.setSavepoint("sp1");
+        insert(conn, "b");
+        Savepoint sp2 = conn.setSavepoint("sp2");
+        insert(conn, "c");
+        Savepoint sp3 = conn.setSavepoint();
+        insert(conn, "d");
+
+        conn.rollback(sp3);
+        conn.rollback(sp3); // still active after rolling back to it
+        conn.rollback(sp1);
+        expectState(() -> conn.rollback(sp2), SqlStateInvalidTransaction);
+        expectState(() -> conn.rollback(sp3), SqlStateInvalidTransaction);
+        insert(conn, "e");
+        conn.commit();
+        assertEquals(Arrays.asList("a", "e"), labels(conn));
+      });
+
+      it("Fails to roll back to a released savepoint", () -> {
+        Connection conn = open(rq);
+        conn.setAutoCommit(false);
+        insert(conn, "a");
+        Savepoint sp1 = conn.setSavepoint();
+        insert(conn, "b");
+        Savepoint sp2 = conn.setSavepoint();
+        insert(conn, "c");
+        conn.releaseSavepoint(sp1);
+        expectState(() -> conn.rollback(sp1), SqlStateInvalidTransaction);
+        expectState(() -> conn.rollback(sp2), SqlStateInvalidTransaction);
+        expectState(() -> conn.releaseSavepoint(sp2), SqlStateInvalidTransaction);
+        conn.commit();
+        assertEquals(Arrays.asList("a", "b", "c"), labels(conn));
+      });
+
+      it("Clears savepoints on commit and rollback", () -> {
+        Connection conn = open(rq);
+        conn.setAutoCommit(false);
+        insert(conn, "a");
+        Savepoint committed = conn.setSavepoint();
+        conn.commit();
+        conn.setAutoCommit(false);
+        expectState(() -> conn.rollback(committed), SqlStateInvalidTransaction);
+        insert(conn, "b");
+        Savepoint rolledBack = conn.setSavepoint();
+        conn.rollback();
+        conn.setAutoCommit(false);
+        expectState(() -> conn.releaseSavepoint(rolledBack), SqlStateInvalidTransaction);
+        conn.rollback();
+        assertEquals(Arrays.asList("a"), labels(conn));
+      });
+    }
+  }
+
+}
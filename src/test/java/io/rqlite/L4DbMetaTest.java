@@ -230,7 +230,7 @@ public class L4DbMetaTest {
         assertTrue(meta.supportsSavepoints());
         assertTrue(meta.supportsNamedParameters());
         assertFalse(meta.supportsMultipleOpenResults());
-        assertFalse(meta.supportsGetGeneratedKeys());
+        assertTrue(meta.supportsGetGeneratedKeys());
         assertFalse(meta.supportsStoredFunctionsUsingCallSyntax());
         assertFalse(meta.autoCommitFailureClosesAllResultSets());
         assertTrue(meta.supportsResultSetType(ResultSet.TYPE_FORWARD_ONLY));
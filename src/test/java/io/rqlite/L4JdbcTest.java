@@ -1,7 +1,12 @@
 package io.rqlite;
 
 import io.rqlite.json.Json;
+import io.rqlite.client.L4Options;
 import io.rqlite.client.L4Result;
+import io.rqlite.jdbc.L4Blob;
+import io.rqlite.jdbc.L4Clob;
+import io.rqlite.jdbc.L4TsCodec;
+import io.rqlite.jdbc.L4Utc;
 import j8spec.UnsafeBlock;
 import j8spec.annotation.DefinedOrder;
 import j8spec.junit.J8SpecRunner;
@@ -11,6 +16,8 @@ import java.io.*;
 import java.math.BigDecimal;
 import java.net.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
 import java.time.*;
 import java.util.*;
@@ -61,6 +68,12 @@ public class L4JdbcTest {
     }
   }
 
+  // Helper to count BLOB spill files in the temp directory
+  private static int spillFiles(Path dir) {
+    String[] files = dir.toFile().list();
+    return files != null ? files.length : 0;
+  }
+
   // Helper to create a mock L4Result
   private static L4Result createMockResult(List<String> columns, List<String> types, List<List<String>> values) {
     L4Result result = new L4Result(Json.object());
@@ -243,6 +256,32 @@ public class L4JdbcTest {
       runFail(() -> castBlob("invalid-base64", colIdx, Types.BLOB), SqlStateInvalidType);
       runFail(() -> castBlob(value, colIdx, Types.VARCHAR), SqlStateInvalidConversion);
 
+      // castBlobRef (lazily decoded)
+      Blob blob = castBlobRef(base64Blob, colIdx, Types.BLOB);
+      assertEquals(value.length(), blob.length());
+      assertEquals(value, readStream(blob.getBinaryStream(), StandardCharsets.UTF_8.toString()));
+      assertArrayEquals(value.getBytes(StandardCharsets.UTF_8), blob.getBytes(1, value.length()));
+      runFail(() -> castBlobRef("invalid-base64", colIdx, Types.BLOB), SqlStateInvalidType);
+      runFail(() -> castBlobRef(value, colIdx, Types.VARCHAR), SqlStateInvalidConversion);
+
+      // chunked Blob/Clob writers
+      Blob written = new L4Blob();
+      try (OutputStream os = written.setBinaryStream(1)) {
+        byte[] chunk = value.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < 4; i++) {
+          os.write(chunk);
+        }
+      }
+      assertEquals(value.length() * 4, written.length());
+      assertEquals(value, new String(written.getBytes(value.length() + 1, value.length()), StandardCharsets.UTF_8));
+      runFail(() -> written.setBytes(written.length() + 2, new byte[1]), SqlStateInvalidParam);
+      Clob cw = new L4Clob();
+      try (Writer w = cw.setCharacterStream(1)) {
+        w.write(value);
+      }
+      cw.setString(8, "rqlite!");
+      assertEquals("Hello, rqlite!", cw.getSubString(1, (int) cw.length()));
+
       // castClob
       Clob clob = castClob(value, colIdx, Types.CLOB);
       assertEquals(value, clob.getSubString(1, value.length()));
@@ -258,6 +297,59 @@ public class L4JdbcTest {
       runFail(() -> castNClob(value, colIdx, Types.BLOB), SqlStateInvalidConversion);
     });
 
+    it("Tests L4Blob spilling to disk", () -> {
+      long spillBytes = L4Options.lobSpillBytes;
+      Path dir = Files.createTempDirectory("l4blobs");
+      L4Options.lobSpillBytes = 64;
+      L4Options.lobSpillDir = dir.toString();
+      try {
+        byte[] chunk = new byte[50];
+        for (int i = 0; i < chunk.length; i++) {
+          chunk[i] = (byte) i;
+        }
+        Blob blob = new L4Blob();
+        blob.setBytes(1, chunk);
+        assertEquals(0, spillFiles(dir));
+        try (OutputStream os = blob.setBinaryStream(51)) {
+          for (int i = 0; i < 3; i++) {
+            os.write(chunk);
+          }
+        }
+        assertEquals(1, spillFiles(dir));
+        assertEquals(200, blob.length());
+        assertArrayEquals(chunk, blob.getBytes(51, 50));
+        assertEquals(103, blob.position(new byte[] {2, 3, 4}, 60));
+        assertEquals(200, readStream(blob.getBinaryStream(), "ISO-8859-1").length());
+        blob.truncate(120);
+        assertEquals(120, blob.length());
+        assertEquals(20, blob.getBytes(101, 50).length);
+        blob.free();
+        assertEquals(0, spillFiles(dir));
+        assertEquals(0, blob.length());
+      } finally {
+        L4Options.lobSpillBytes = spillBytes;
+        L4Options.lobSpillDir = null;
+        Files.delete(dir);
+      }
+    });
+
+    it("Rejects BLOBs too large for memory when spilling is off", () -> {
+      long spillBytes = L4Options.lobSpillBytes;
+      L4Options.lobSpillBytes = 0;
+      try {
+        Blob blob = new L4Blob();
+        try {
+          blob.setBytes(1, new byte[16], 0, Integer.MAX_VALUE);
+          fail("BLOB past the largest array was accepted");
+        } catch (SQLException e) {
+          assertEquals(SqlStateInvalidParam, e.getSQLState());
+        }
+        assertEquals(0, blob.length());
+      } finally {
+        L4Options.lobSpillBytes = spillBytes;
+      }
+    });
+
     it("Tests L4Jdbc date and time conversions", () -> {
       int colIdx = 1;
       Calendar utcCal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
@@ -287,6 +379,14 @@ public class L4JdbcTest {
       assertEquals(new Timestamp(1697328000000L), castTimestamp("1697328000", colIdx, Types.INTEGER, utcCal));
       runFail(() -> castTimestamp("invalid-ts", colIdx, Types.TIMESTAMP, utcCal), SqlStateInvalidType);
       runFail(() -> castTimestamp("2023-10-15 14:30:00", colIdx, Types.BLOB, utcCal), SqlStateInvalidConversion);
+
+      // fractional seconds, as written by L4Utc.utcFmtOf
+      Timestamp fracTs = castTimestamp("2023-10-15 14:30:00.125", colIdx, Types.TIMESTAMP, utcCal);
+      assertEquals(expectedTs.getTime() + 125, fracTs.getTime());
+      assertEquals("2023-10-15 14:30:00.125", L4Utc.utcFmtOf(fracTs));
+      assertEquals("2023-10-15 14:30:00", L4Utc.utcFmtOf(expectedTs));
+      assertNull(L4TsCodec.parseTimestamp("2023-02-29 00:00:00", utcCal));
+      assertNull(L4TsCodec.parseDate("invalid-date", utcCal));
     });
 
     it("Tests L4Jdbc URL conversion", () -> {
@@ -0,0 +1,45 @@
+package io.rqlite;
+
+import io.rqlite.client.L4Histogram;
+import io.rqlite.client.L4MetricsRegistry;
+import j8spec.annotation.DefinedOrder;
+import j8spec.junit.J8SpecRunner;
+import org.junit.runner.RunWith;
+
+import static j8spec.J8Spec.*;
+import static org.junit.Assert.*;
+
+@DefinedOrder
+@RunWith(J8SpecRunner.class)
+public class L4MetricsTest {
+  static {
+    it("Records histogram percentiles within bucket precision", () -> {
+      L4Histogram h = new L4Histogram();
+      for (int i = 1; i <= 100_000; i++) {
+        h.record(i * 1000L);
+      }
+      L4Histogram.Snapshot s = h.snapshot();
+      assertEquals(100_000, s.count);
+      assertEquals(100_000_000L, s.max);
+      assertEquals(50_000_000, s.p50, 50_000_000 * 0.04);
+      assertEquals(99_000_000, s.p99, 99_000_000 * 0.04);
+      h.reset();
+      assertEquals(0, h.snapshot().count);
+    });
+
+    it("Aggregates request metrics per endpoint", () -> {
+      L4MetricsRegistry r = new L4MetricsRegistry();
+      r.onRequest("db/query", 2_000_000, 100, 2000, 200);
+      r.onRequest("db/query", 4_000_000, 100, 2000, 503);
+      r.onError("db/execute", new IllegalStateException("boom"));
+      assertEquals(2, r.getRequests());
+      assertEquals(2, r.getErrors());
+      assertEquals(200, r.getBytesSent());
+      assertEquals(4000, r.getBytesReceived());
+      assertEquals(4.0, r.getLatencyMaxMs(), 0.001);
+      assertTrue(r.snapshot().containsKey("db/execute"));
+      r.reset();
+      assertEquals(0, r.getRequests());
+    });
+  }
+}
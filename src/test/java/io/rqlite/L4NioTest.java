@@ -0,0 +1,283 @@
+package io.rqlite;
+
+import io.rqlite.client.L4Call;
+import io.rqlite.client.L4Client;
+import io.rqlite.client.L4Options;
+import io.rqlite.client.L4Response;
+import io.rqlite.client.L4Statement;
+import j8spec.annotation.DefinedOrder;
+import j8spec.junit.J8SpecRunner;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static j8spec.J8Spec.*;
+import static org.junit.Assert.*;
+
+@DefinedOrder
+@RunWith(J8SpecRunner.class)
+public class L4NioTest {
+
+  private static final Pattern Key = Pattern.compile("\"(k\\d+|slow)\"");
+
+  private interface Handler {
+    void serve(int connection, InputStream in, OutputStream out) throws Exception;
+  }
+
+  /* A raw HTTP/1.1 node on the loopback address, serving each connection on a thread of its own. */
+  private static ServerSocket node(Handler handler) throws IOException {
+    ServerSocket ss = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    AtomicInteger connections = new AtomicInteger();
+    Thread t = new Thread(() -> {
+      while (!ss.isClosed()) {
+        try {
+          Socket s = ss.accept();
+          int n = connections.incrementAndGet();
+          new Thread(() -> {
+            try (Socket so = s) {
+              handler.serve(n, so.getInputStream(), so.getOutputStream());
+            } catch (Exception ignored) {
+              // client went away
+            }
+          }).start();
+        } catch (IOException e) {
+          return;
+        }
+      }
+    });
+    t.setDaemon(true);
+    t.start();
+    return ss;
+  }
+
+  private static String readLine(InputStream in) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    int b;
+    while ((b = in.read()) != -1 && b != '\n') {
+      if (b != '\r') {
+        sb.append((char) b);
+      }
+    }
+    return b == -1 && sb.length() == 0 ? null : sb.toString();
+  }
+
+  /* Reads a request, returning the key it queries for, or null once the client hangs up. */
+  private static String readKey(InputStream in) throws IOException {
+    int len = 0;
+    String line;
+    while ((line = readLine(in)) != null && !line.isEmpty()) {
+      if (line.toLowerCase().startsWith("content-length:")) {
+        len = Integer.parseInt(line.substring(15).trim());
+      }
+    }
+    if (line == null) {
+      return null;
+    }
+    byte[] body = new byte[len];
+    for (int n = 0, r; n < len; n += r) {
+      if ((r = in.read(body, n, len - n)) == -1) {
+        return null;
+      }
+    }
+    Matcher m = Key.matcher(new String(body, StandardCharsets.UTF_8));
+    return m.find() ? m.group(1) : "";
+  }
+
+  private static void respond(OutputStream out, String key) throws IOException {
+    byte[] body = String.format(
+      "{\"results\":[{\"columns\":[\"v\"],\"types\":[\"text\"],\"values\":[[\"%s\"]]}]}", key
+    ).getBytes(StandardCharsets.UTF_8);
+    out.write(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: " + body.length + "\r\n\r\n")
+      .getBytes(StandardCharsets.ISO_8859_1));
+    out.write(body);
+    out.flush();
+  }
+
+  private static String query(L4Client rq, L4Call call, String key) {
+    L4Response res = rq.query(call, new L4Statement().sql("SELECT ?").withPositionalParam(key));
+    return res.first().values.get(0).get(0);
+  }
+
+  private static void withNio(int connections, int pipeline, UnsafeRun test) throws Throwable {
+    int c0 = L4Options.nioConnections, p0 = L4Options.nioPipeline;
+    L4Options.nio = true;
+    L4Options.nioConnections = connections;
+    L4Options.nioPipeline = pipeline;
+    try {
+      test.run();
+    } finally {
+      L4Options.nio = false;
+      L4Options.nioConnections = c0;
+      L4Options.nioPipeline = p0;
+    }
+  }
+
+  private interface UnsafeRun {
+    void run() throws Throwable;
+  }
+
+  private static final String SlowSql =
+    "WITH RECURSIVE c(x) AS (SELECT 1 UNION ALL SELECT x + 1 FROM c WHERE x < 2000000) SELECT COUNT(*) FROM c";
+
+  static {
+    it("Pipelines requests on one connection and matches responses in order", () -> withNio(1, 8, () -> {
+      AtomicInteger connections = new AtomicInteger();
+      try (ServerSocket ss = node((n, in, out) -> {
+        connections.set(n);
+        List<String> keys = new ArrayList<>();
+        while (keys.size() < 8) {
+          keys.add(readKey(in)); // every request arrives before the first response goes out
+        }
+        for (String key : keys) {
+          respond(out, key);
+        }
+      })) {
+        L4Client rq = new L4Client("http://127.0.0.1:" + ss.getLocalPort());
+        ExecutorService ex = Executors.newFixedThreadPool(8);
+        try {
+          List<CompletableFuture<String>> replies = new ArrayList<>();
+          for (int i = 0; i < 8; i++) {
+            String key = "k" + i;
+            replies.add(CompletableFuture.supplyAsync(() -> query(rq, null, key), ex));
+          }
+          for (int i = 0; i < 8; i++) {
+            assertEquals("k" + i, replies.get(i).get(5, TimeUnit.SECONDS));
+          }
+          assertEquals(1, connections.get());
+        } finally {
+          ex.shutdownNow();
+        }
+      }
+    }));
+
+    it("Drops the response of an aborted request and keeps the pipeline in order", () -> withNio(1, 8, () -> {
+      AtomicInteger connections = new AtomicInteger();
+      try (ServerSocket ss = node((n, in, out) -> {
+        connections.set(n);
+        String key;
+        while ((key = readKey(in)) != null) {
+          if (key.equals("slow")) {
+            Thread.sleep(500);
+          }
+          respond(out, key);
+        }
+      })) {
+        L4Client rq = new L4Client("http://127.0.0.1:" + ss.getLocalPort());
+        L4Call call = new L4Call(100);
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> query(rq, call, "slow"));
+        Thread.sleep(50);
+        assertEquals("k1", query(rq, null, "k1"));
+        try {
+          slow.get();
+          fail("aborted request returned");
+        } catch (ExecutionException e) {
+          assertTrue(call.isTimedOut());
+        }
+        assertEquals("k2", query(rq, null, "k2"));
+        assertEquals(1, connections.get());
+      }
+    }));
+
+    it("Fails a written request when its connection breaks and reconnects for the next one", () -> withNio(1, 8, () -> {
+      AtomicInteger connections = new AtomicInteger();
+      try (ServerSocket ss = node((n, in, out) -> {
+        connections.set(n);
+        String key;
+        while ((key = readKey(in)) != null) {
+          if (n == 1) {
+            return; // hang up without answering
+          }
+          respond(out, key);
+        }
+      })) {
+        L4Client rq = new L4Client("http://127.0.0.1:" + ss.getLocalPort());
+        try {
+          query(rq, null, "k1");
+          fail("request on a broken connection returned");
+        } catch (IllegalStateException e) {
+          assertNotNull(e.getCause());
+        }
+        assertEquals("k2", query(rq, null, "k2"));
+        assertEquals(2, connections.get());
+      }
+    }));
+
+    it("Keeps waiting behind an aborted request when timeouts are disabled", () -> withNio(1, 8, () -> {
+      long timeout0 = L4Options.timeoutSec;
+      AtomicInteger connections = new AtomicInteger();
+      try (ServerSocket ss = node((n, in, out) -> {
+        connections.set(n);
+        List<String> keys = new ArrayList<>();
+        while (keys.size() < 2) {
+          keys.add(readKey(in));
+        }
+        Thread.sleep(2500); // past any sweep of a one second timeout
+        for (String key : keys) {
+          respond(out, key);
+        }
+        String key;
+        while ((key = readKey(in)) != null) {
+          respond(out, key);
+        }
+      })) {
+        L4Options.timeoutSec = -1;
+        L4Client rq = new L4Client("http://127.0.0.1:" + ss.getLocalPort());
+        L4Call call = new L4Call(100);
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> query(rq, call, "slow"));
+        Thread.sleep(50);
+        assertEquals("k1", query(rq, null, "k1"));
+        try {
+          slow.get();
+          fail("aborted request returned");
+        } catch (ExecutionException e) {
+          assertTrue(call.isTimedOut());
+        }
+        assertEquals("k2", query(rq, null, "k2"));
+        assertEquals(1, connections.get());
+      } finally {
+        L4Options.timeoutSec = timeout0;
+      }
+    }));
+
+    if (L4Tests.runIntegrationTests) {
+      it("Never sends a write cancelled while it waits for a saturated pipeline", () -> withNio(1, 1, () -> {
+        L4Client rq = L4Tests.localClient();
+        rq.executeSingle("CREATE TABLE IF NOT EXISTS nio_cancel (id INTEGER PRIMARY KEY, label TEXT)");
+        rq.executeSingle("DELETE FROM nio_cancel");
+        CompletableFuture<L4Response> slow = CompletableFuture.supplyAsync(() -> rq.querySingle(SlowSql));
+        Thread.sleep(100);
+        L4Call call = new L4Call(0);
+        CompletableFuture<L4Response> write = CompletableFuture.supplyAsync(() -> rq.execute(call, false,
+          new L4Statement().sql("INSERT INTO nio_cancel (label) VALUES (?)").withPositionalParam("cancelled")
+        ));
+        Thread.sleep(100);
+        call.cancel();
+        try {
+          write.get();
+          fail("cancelled write returned");
+        } catch (ExecutionException e) {
+          assertTrue(call.isCancelled());
+        }
+        slow.get();
+        assertEquals("0", rq.querySingle("SELECT COUNT(*) FROM nio_cancel").first().values.get(0).get(0));
+      }));
+    }
+  }
+
+}
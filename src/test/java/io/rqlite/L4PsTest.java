@@ -134,6 +134,14 @@ public class L4PsTest {
         int rowsAffected = ps.executeUpdate();
         assertEquals(1, rowsAffected);
 
+        // Streams are sent once, re-executing needs them set again
+        try {
+          ps.executeUpdate();
+          fail("Expected SQLException for a stream parameter already sent");
+        } catch (SQLException e) {
+          assertEquals(SqlStateInvalidParam, e.getSQLState());
+        }
+
         // Verify
         L4Ps selectPs = new L4Ps(rq, "SELECT text_val, clob_val, nclob_val, nstring_val, blob_val FROM ps_test_data WHERE id = ?");
         selectPs.setInt(1, 1);
@@ -0,0 +1,168 @@
+package io.rqlite;
+
+import io.rqlite.client.L4Client;
+import io.rqlite.client.L4Options;
+import io.rqlite.client.L4SlowLog;
+import io.rqlite.client.L4Statement;
+import io.rqlite.jdbc.L4Log;
+import j8spec.annotation.DefinedOrder;
+import j8spec.junit.J8SpecRunner;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+
+import static j8spec.J8Spec.*;
+import static org.junit.Assert.*;
+
+@DefinedOrder
+@RunWith(J8SpecRunner.class)
+public class L4SlowLogTest {
+
+  private static final byte[] Result = "{\"results\":[{\"columns\":[\"v\"],\"types\":[\"integer\"],\"values\":[[1]],\"time\":0.0001}],\"time\":0.0002}"
+    .getBytes(StandardCharsets.UTF_8);
+
+  /* A keep-alive node answering every query at once, or after 300ms when its SQL mentions slow. */
+  private static ServerSocket node() throws IOException {
+    ServerSocket ss = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    Thread t = new Thread(() -> {
+      while (!ss.isClosed()) {
+        try {
+          Socket s = ss.accept();
+          Thread c = new Thread(() -> {
+            try (Socket so = s) {
+              BufferedReader in = new BufferedReader(new InputStreamReader(so.getInputStream(), StandardCharsets.UTF_8));
+              OutputStream out = so.getOutputStream();
+              String line;
+              while ((line = in.readLine()) != null) {
+                int len = 0;
+                while (line != null && !line.isEmpty()) {
+                  if (line.toLowerCase().startsWith("content-length:")) {
+                    len = Integer.parseInt(line.substring(15).trim());
+                  }
+                  line = in.readLine();
+                }
+                char[] body = new char[len];
+                for (int n = 0, r; n < len && (r = in.read(body, n, len - n)) != -1; n += r) {}
+                if (new String(body).contains("slow")) {
+                  Thread.sleep(300);
+                }
+                byte[] head = ("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: " + Result.length + "\r\n\r\n")
+                  .getBytes(StandardCharsets.ISO_8859_1);
+                byte[] res = new byte[head.length + Result.length];
+                System.arraycopy(head, 0, res, 0, head.length);
+                System.arraycopy(Result, 0, res, head.length, Result.length);
+                out.write(res);
+                out.flush();
+              }
+            } catch (Exception ignored) {
+              // client went away
+            }
+          });
+          c.setDaemon(true);
+          c.start();
+        } catch (IOException e) {
+          return;
+        }
+      }
+    });
+    t.setDaemon(true);
+    t.start();
+    return ss;
+  }
+
+  private interface UnsafeRun {
+    void run(L4Client rq, List<Object[]> warnings) throws Throwable;
+  }
+
+  private static void withSlowLog(long slowQueryMs, UnsafeRun test) throws Throwable {
+    long ms0 = L4Options.slowQueryMs;
+    BiConsumer<String, Object[]> warn0 = L4Log.warnFn;
+    List<Object[]> warnings = new CopyOnWriteArrayList<>();
+    L4Options.slowQueryMs = slowQueryMs;
+    L4Log.setWarnLogger((fmt, args) -> warnings.add(args));
+    L4SlowLog.reset();
+    try (ServerSocket ss = node()) {
+      test.run(new L4Client("http://127.0.0.1:" + ss.getLocalPort()), warnings);
+    } finally {
+      L4Options.slowQueryMs = ms0;
+      L4Log.warnFn = warn0;
+      L4SlowLog.reset();
+    }
+  }
+
+  private static L4SlowLog.Stats statsOf(String fingerprint) {
+    for (L4SlowLog.Stats s : L4SlowLog.top(Integer.MAX_VALUE)) {
+      if (s.fingerprint.equals(fingerprint)) {
+        return s;
+      }
+    }
+    return null;
+  }
+
+  static {
+    it("Counts requests per fingerprint and warns on every one at a zero threshold", () -> withSlowLog(0, (rq, warnings) -> {
+      for (int i = 1; i <= 3; i++) {
+        rq.query(new L4Statement().sql("SELECT * FROM users WHERE id = " + i));
+      }
+      rq.query(new L4Statement().sql("SELECT name FROM users"));
+      L4SlowLog.Stats s = statsOf("select * from users where id=?");
+      assertNotNull(s);
+      assertEquals(3, s.count());
+      assertEquals(3, s.slow());
+      assertTrue(s.maxNanos() > 0);
+      assertTrue(s.maxNanos() <= s.totalNanos());
+      assertTrue(s.maxNanos() * 3 >= s.totalNanos());
+      assertEquals(600_000, s.serverNanos(), 10); // rqlite time of 0.2ms per request
+      assertEquals(1, statsOf("select name from users").count());
+      assertEquals(4, warnings.size());
+      assertEquals("select * from users where id=?", warnings.get(0)[warnings.get(0).length - 1]);
+    }));
+
+    it("Warns only past the threshold and ranks fingerprints by total time", () -> withSlowLog(200, (rq, warnings) -> {
+      for (int i = 0; i < 5; i++) {
+        rq.query(new L4Statement().sql("SELECT * FROM fast WHERE id = " + i));
+      }
+      assertTrue(warnings.isEmpty());
+      rq.query(new L4Statement().sql("SELECT * FROM slow WHERE id = 1"));
+      rq.query(new L4Statement().sql("SELECT 1"));
+      assertEquals(1, warnings.size());
+      assertEquals("select * from slow where id=?", warnings.get(0)[warnings.get(0).length - 1]);
+
+      List<L4SlowLog.Stats> top = L4SlowLog.top(10);
+      assertEquals(3, top.size());
+      assertEquals("select * from slow where id=?", top.get(0).fingerprint);
+      assertEquals(1, top.get(0).slow());
+      assertEquals(0, statsOf("select * from fast where id=?").slow());
+      for (int i = 1; i < top.size(); i++) {
+        assertTrue(top.get(i - 1).totalNanos() >= top.get(i).totalNanos());
+      }
+      assertEquals(1, L4SlowLog.top(1).size());
+    }));
+
+    it("Evicts the fingerprint with the least total time once the table is full", () -> withSlowLog(60_000, (rq, warnings) -> {
+      for (int i = 0; i < 20; i++) {
+        rq.query(new L4Statement().sql("SELECT * FROM t0"));
+      }
+      for (int i = 1; i < L4SlowLog.MaxFingerprints; i++) {
+        rq.query(new L4Statement().sql("SELECT * FROM t" + i));
+      }
+      assertEquals(L4SlowLog.MaxFingerprints, L4SlowLog.top(Integer.MAX_VALUE).size());
+      rq.query(new L4Statement().sql("SELECT * FROM extra"));
+      assertEquals(L4SlowLog.MaxFingerprints, L4SlowLog.top(Integer.MAX_VALUE).size());
+      assertNotNull(statsOf("select * from extra"));
+      assertEquals(20, statsOf("select * from t0").count());
+      assertTrue(warnings.isEmpty());
+    }));
+  }
+
+}
@@ -1,7 +1,7 @@
 package io.rqlite;
 
 import io.rqlite.client.L4Client;
-import io.rqlite.client.L4Options;
+import io.rqlite.client.L4Level;
 import io.rqlite.client.L4Statement;
 import io.rqlite.jdbc.L4St;
 import io.rqlite.client.L4Response;
@@ -21,6 +21,9 @@ public class L4StTest {
 
   private static final L4Client rq = L4Tests.localClient();
 
+  private static final String SlowSql =
+    "WITH RECURSIVE c(x) AS (SELECT 1 UNION ALL SELECT x + 1 FROM c WHERE x < 100000000) SELECT COUNT(*) FROM c";
+
   // Setup helper to create and populate test table
   private static void setupTestTable(L4Client rq) {
     // Drop existing table
@@ -244,12 +247,30 @@ public class L4StTest {
         }
       });
 
+      it("Tests L4St consistency overrides and hints", () -> {
+        setupTestTable(rq);
+        L4St stmt = new L4St(rq).withLevel(L4Level.none).withFreshness("1s");
+        ResultSet rs = stmt.executeQuery("SELECT * FROM st_test_data");
+        assertTrue(rs.next());
+        rs.close();
+        rs = stmt.executeQuery("SELECT /*+ level=weak freshness=500ms */ * FROM st_test_data");
+        assertTrue(rs.next());
+        rs.close();
+        try {
+          stmt.withFreshness("soon");
+          fail("Expected SQLException for invalid freshness");
+        } catch (SQLException e) {
+          assertEquals(SqlStateInvalidParam, e.getSQLState());
+        }
+        stmt.close();
+      });
+
       it("Tests L4St timeout handling", () -> {
         setupTestTable(rq);
         L4St stmt = new L4St(rq);
 
         // Test default timeout (0, no timeout)
-        assertEquals(L4Options.timeoutSec, stmt.getQueryTimeout());
+        assertEquals(0, stmt.getQueryTimeout());
         stmt.setQueryTimeout(10);
         assertEquals(10, stmt.getQueryTimeout());
         ResultSet rs = stmt.executeQuery("SELECT * FROM st_test_data");
@@ -271,6 +292,42 @@ public class L4StTest {
           assertEquals(SqlStateInvalidParam, e.getSQLState());
         }
 
+        // Test a query running past its timeout
+        stmt.setQueryTimeout(1);
+        long t0 = System.nanoTime();
+        try {
+          stmt.executeQuery(SlowSql);
+          fail("Expected SQLTimeoutException for a slow query");
+        } catch (SQLTimeoutException e) {
+          assertEquals(SqlStateTimeout, e.getSQLState());
+        }
+        assertTrue(System.nanoTime() - t0 < 3_000_000_000L);
+
+        stmt.close();
+      });
+
+      it("Tests L4St cancel from another thread", () -> {
+        L4St stmt = new L4St(rq);
+        stmt.setQueryTimeout(2); // so the node gives up on the cancelled query soon after
+        Thread canceller = new Thread(() -> {
+          try {
+            Thread.sleep(300);
+            stmt.cancel();
+          } catch (Exception e) {
+            throw new IllegalStateException(e);
+          }
+        });
+        canceller.start();
+        try {
+          stmt.executeQuery(SlowSql);
+          fail("Expected SQLException for a cancelled query");
+        } catch (SQLException e) {
+          assertEquals(SqlStateCancelled, e.getSQLState());
+        } finally {
+          canceller.join();
+        }
+        ResultSet rs = stmt.executeQuery("SELECT 1"); // still usable
+        assertTrue(rs.next());
         stmt.close();
       });
 
@@ -338,12 +395,7 @@ public class L4StTest {
         } catch (SQLException e) {
           assertEquals(SqlStateFeatureNotSupported, e.getSQLState());
         }
-        try {
-          stmt.cancel();
-          fail("Expected SQLException for cancel");
-        } catch (SQLException e) {
-          assertEquals(SqlStateFeatureNotSupported, e.getSQLState());
-        }
+        stmt.cancel(); // nothing in flight, no-op
         try {
           stmt.setCursorName("cursor");
           fail("Expected SQLException for setCursorName");
@@ -362,17 +414,17 @@ public class L4StTest {
         } catch (SQLException e) {
           assertEquals(SqlStateFeatureNotSupported, e.getSQLState());
         }
-        try {
-          stmt.getGeneratedKeys();
-          fail("Expected SQLException for getGeneratedKeys");
-        } catch (SQLException e) {
-          assertEquals(SqlStateFeatureNotSupported, e.getSQLState());
+        assertEquals(1, stmt.executeUpdate("INSERT INTO st_test_data (num_val) VALUES (1)", Statement.RETURN_GENERATED_KEYS));
+        try (ResultSet keys = stmt.getGeneratedKeys()) {
+          assertTrue(keys.next());
+          assertTrue(keys.getLong(1) > 0);
+          assertFalse(keys.next());
         }
         try {
-          stmt.executeUpdate("INSERT INTO st_test_data (num_val) VALUES (1)", Statement.RETURN_GENERATED_KEYS);
-          fail("Expected SQLException for generated keys");
+          stmt.executeUpdate("INSERT INTO st_test_data (num_val) VALUES (1)", 42);
+          fail("Expected SQLException for invalid autoGeneratedKeys");
         } catch (SQLException e) {
-          assertEquals(SqlStateFeatureNotSupported, e.getSQLState());
+          assertEquals(SqlStateInvalidParam, e.getSQLState());
         }
         try {
           stmt.setPoolable(true);
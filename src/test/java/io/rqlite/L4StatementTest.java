@@ -1,11 +1,18 @@
 package io.rqlite;
 
+import io.rqlite.client.L4Call;
+import io.rqlite.client.L4Level;
+import io.rqlite.client.L4Options;
 import io.rqlite.client.L4Statement;
 import j8spec.annotation.DefinedOrder;
 import j8spec.junit.J8SpecRunner;
 import org.junit.runner.RunWith;
+import io.rqlite.json.Json;
 import io.rqlite.json.JsonArray;
 
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+
 import static j8spec.J8Spec.*;
 import static org.junit.Assert.*;
 
@@ -44,5 +51,51 @@ public class L4StatementTest {
       JsonArray statement4 = builder4.build();
       assertEquals("[\"INSERT INTO users (id, data) VALUES (?, ?)\",1,\"3q2+7w==\"]", statement4.toString());
     });
+    it("Streams LOB parameters when the statement is written", () -> {
+      byte[] blobData = new byte[] {(byte) 0xDE, (byte) 0xAD, (byte) 0xBE, (byte) 0xEF};
+      L4Statement st = new L4Statement()
+        .sql("INSERT INTO docs (data, body) VALUES (?, ?)")
+        .withPositionalParams(
+          Json.stream(new ByteArrayInputStream(blobData), -1),
+          Json.stream(new StringReader("say \"hi\"\nbye"), 3)
+        );
+      assertTrue(st.hasStreams());
+      assertEquals("[\"INSERT INTO docs (data, body) VALUES (?, ?)\",\"3q2+7w==\",\"say\"]", st.build().toString());
+
+      L4Statement detached = new L4Statement()
+        .sql("INSERT INTO docs (data) VALUES (?)")
+        .withPositionalParams(Json.stream(new ByteArrayInputStream(blobData), 2))
+        .detach();
+      assertFalse(detached.hasStreams());
+      assertEquals("[\"INSERT INTO docs (data) VALUES (?)\",\"3q0=\"]", detached.build().toString());
+    });
+    it("Fingerprints SQL by stripping literals and formatting", () -> {
+      String fp = L4Statement.fingerprint("SELECT * FROM users WHERE id = 42 AND name = 'O''Brien'");
+      assertEquals("select * from users where id=? and name=?", fp);
+      assertEquals(fp, L4Statement.fingerprint("select *\n  from Users where id=7 and name='x' -- note"));
+      assertEquals("select a from t1 where id in(?+) and b=?",
+        L4Statement.fingerprint("SELECT a FROM t1 WHERE id IN (1, 2, 3) /* c */ AND b = ?"));
+      assertEquals("update \"My Table\" set v=?,w=? where k=:id",
+        L4Statement.fingerprint("UPDATE \"My Table\" SET v = 1.5e-3, w = X'0a0b' WHERE k = :id"));
+    });
+    it("Reads consistency hints outside quoted text only", () -> {
+      L4Call call = L4Call.withHints(null, "SELECT /*+ level=none freshness=500ms freshness_strict=true */ * FROM sales");
+      String params = L4Options.queryParams(false, call);
+      assertTrue(params.contains("level=none"));
+      assertTrue(params.contains("freshness=500ms"));
+      assertTrue(params.contains("freshness_strict=true"));
+
+      assertNull(L4Call.withHints(null, "SELECT * FROM notes WHERE body = '/*+ level=none */'"));
+      assertNull(L4Call.withHints(null, "SELECT \"/*+ level=none */\" FROM t -- /*+ level=none */"));
+      assertNull(L4Call.withHints(null, "SELECT /* level=none */ * FROM t"));
+      L4Call quoted = L4Call.withHints(null, "SELECT 'it''s /*+ level=weak */' /*+ level=strong */ FROM t");
+      assertTrue(L4Options.queryParams(false, quoted).contains("level=strong"));
+
+      L4Call own = new L4Call(2000).level(L4Level.weak);
+      assertSame(own, L4Call.withHints(own, "SELECT 1"));
+      String ownParams = L4Options.queryParams(false, L4Call.withHints(own, "SELECT /*+ bogus level=none */ 1"));
+      assertTrue(ownParams.contains("level=none"));
+      assertTrue(ownParams.contains("timeout=2000ms"));
+    });
   }
 }
@@ -0,0 +1,231 @@
+package io.rqlite;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.rqlite.client.L4Call;
+import io.rqlite.client.L4Client;
+import io.rqlite.client.L4Options;
+import io.rqlite.client.L4Statement;
+import j8spec.annotation.DefinedOrder;
+import j8spec.junit.J8SpecRunner;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static j8spec.J8Spec.*;
+import static org.junit.Assert.*;
+
+@DefinedOrder
+@RunWith(J8SpecRunner.class)
+public class L4TransportTest {
+
+  private static final Pattern Key = Pattern.compile("\"(k\\d+|slow)\"");
+
+  private interface Handler {
+    void serve(HttpExchange ex) throws Exception;
+  }
+
+  /* A node answering each query with the key it asks for, after whatever the handler does first. */
+  private static HttpServer node(Handler before) throws IOException {
+    HttpServer hs = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 50);
+    hs.setExecutor(Executors.newCachedThreadPool(r -> {
+      Thread t = new Thread(r);
+      t.setDaemon(true);
+      return t;
+    }));
+    hs.createContext("/", ex -> {
+      try {
+        before.serve(ex);
+        if (ex.getRequestMethod().equals("HEAD")) {
+          ex.sendResponseHeaders(200, -1);
+          return;
+        }
+        Matcher m = Key.matcher(new String(ex.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        if (m.find() && m.group(1).equals("slow")) {
+          Thread.sleep(2000);
+        }
+        byte[] body = String.format(
+          "{\"results\":[{\"columns\":[\"v\"],\"types\":[\"text\"],\"values\":[[\"%s\"]]}]}", m.group(1)
+        ).getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json");
+        ex.sendResponseHeaders(200, body.length);
+        ex.getResponseBody().write(body);
+      } catch (Exception e) {
+        ex.sendResponseHeaders(500, -1);
+      } finally {
+        ex.close();
+      }
+    });
+    hs.start();
+    return hs;
+  }
+
+  private static String query(L4Client rq, L4Call call, String key) {
+    return rq.query(call, new L4Statement().sql("SELECT ?").withPositionalParam(key)).first().values.get(0).get(0);
+  }
+
+  private static String url(HttpServer hs) {
+    return "http://127.0.0.1:" + hs.getAddress().getPort();
+  }
+
+  private interface UnsafeRun {
+    void run() throws Throwable;
+  }
+
+  private static void withHttp2(UnsafeRun test) throws Throwable {
+    boolean h0 = L4Options.http2;
+    int c0 = L4Options.http2Connections;
+    L4Options.http2 = true;
+    L4Options.http2Connections = 1;
+    try {
+      test.run();
+    } finally {
+      L4Options.http2 = h0;
+      L4Options.http2Connections = c0;
+    }
+  }
+
+  /* Answers every request on a connection of its own, noting its User-Agent, and counts down once the client hangs up. */
+  private static ServerSocket keepAliveNode(List<String> agents, CountDownLatch closed) throws IOException {
+    ServerSocket ss = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    Thread t = new Thread(() -> {
+      while (!ss.isClosed()) {
+        try {
+          Socket s = ss.accept();
+          new Thread(() -> {
+            try (Socket so = s) {
+              BufferedReader in = new BufferedReader(new InputStreamReader(so.getInputStream(), StandardCharsets.ISO_8859_1));
+              OutputStream out = so.getOutputStream();
+              String line;
+              while ((line = in.readLine()) != null) {
+                int len = 0;
+                while (line != null && !line.isEmpty()) {
+                  if (line.toLowerCase().startsWith("user-agent:")) {
+                    agents.add(line.substring(11).trim());
+                  } else if (line.toLowerCase().startsWith("content-length:")) {
+                    len = Integer.parseInt(line.substring(15).trim());
+                  }
+                  line = in.readLine();
+                }
+                in.skip(len);
+                byte[] body = "{\"results\":[{\"columns\":[\"v\"],\"types\":[\"text\"],\"values\":[[\"k1\"]]}]}"
+                  .getBytes(StandardCharsets.UTF_8);
+                out.write(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: " + body.length + "\r\n\r\n")
+                  .getBytes(StandardCharsets.ISO_8859_1));
+                out.write(body);
+                out.flush();
+              }
+              closed.countDown();
+            } catch (IOException ignored) {
+              // test is over
+            }
+          }).start();
+        } catch (IOException e) {
+          return;
+        }
+      }
+    });
+    t.setDaemon(true);
+    t.start();
+    return ss;
+  }
+
+  static {
+    it("Sends through the Java 21 client and closes it once the options change", () -> {
+      boolean h0 = L4Options.http2;
+      List<String> agents = new CopyOnWriteArrayList<>();
+      CountDownLatch closed = new CountDownLatch(1);
+      try (ServerSocket ss = keepAliveNode(agents, closed)) {
+        L4Options.http2 = false;
+        L4Client rq = new L4Client("http://127.0.0.1:" + ss.getLocalPort());
+        assertEquals("k1", query(rq, null, "k1"));
+        assertTrue(agents.get(0).startsWith("Java-http-client"));
+        L4Options.http2 = true;
+        assertEquals("k1", query(rq, null, "k1")); // rebuilds the transport
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+      } finally {
+        L4Options.http2 = h0;
+      }
+    });
+
+    it("Does not hold requests back behind a slow first response", () -> withHttp2(() -> {
+      HttpServer warm = node(ex -> {}), hs = node(ex -> {});
+      try {
+        assertEquals("k0", query(new L4Client(url(warm)), null, "k0")); // so class loading is not timed below
+        L4Client rq = new L4Client(url(hs));
+        CompletableFuture<String> slow = CompletableFuture.supplyAsync(() -> query(rq, null, "slow"));
+        Thread.sleep(300);
+        long t0 = System.nanoTime();
+        assertEquals("k1", query(rq, null, "k1"));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0) < 1000);
+        assertEquals("slow", slow.get());
+      } finally {
+        warm.stop(0);
+        hs.stop(0);
+      }
+    }));
+
+    it("Ends the wait for a connection on the call's deadline", () -> withHttp2(() -> {
+      HttpServer hs = node(ex -> {
+        if (ex.getRequestMethod().equals("HEAD")) {
+          Thread.sleep(2000);
+        }
+      });
+      try {
+        L4Client rq = new L4Client(url(hs));
+        L4Call call = new L4Call(200);
+        long t0 = System.nanoTime();
+        try {
+          query(rq, call, "k1");
+          fail("request returned before its connection was up");
+        } catch (IllegalStateException e) {
+          assertTrue(call.isTimedOut());
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t0) < 1000);
+      } finally {
+        hs.stop(0);
+      }
+    }));
+
+    it("Ends the wait for a connection when the call is cancelled", () -> withHttp2(() -> {
+      HttpServer hs = node(ex -> {
+        if (ex.getRequestMethod().equals("HEAD")) {
+          Thread.sleep(2000);
+        }
+      });
+      try {
+        L4Client rq = new L4Client(url(hs));
+        L4Call call = new L4Call(0);
+        CompletableFuture<String> waiting = CompletableFuture.supplyAsync(() -> query(rq, call, "k1"));
+        Thread.sleep(200);
+        call.cancel();
+        try {
+          waiting.get(1, TimeUnit.SECONDS);
+          fail("cancelled request returned");
+        } catch (ExecutionException e) {
+          assertTrue(call.isCancelled());
+        }
+      } finally {
+        hs.stop(0);
+      }
+    }));
+  }
+
+}